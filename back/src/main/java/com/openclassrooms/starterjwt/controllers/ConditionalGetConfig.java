@@ -0,0 +1,62 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import com.openclassrooms.starterjwt.services.ResourceVersions;
+import com.openclassrooms.starterjwt.services.SessionService;
+import com.openclassrooms.starterjwt.services.TeacherService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Map;
+
+@Configuration
+public class ConditionalGetConfig implements WebMvcConfigurer {
+    private static final String SESSION_PATH = "/api/session/{id:[0-9]{1,18}}";
+
+    private final ResourceVersions resourceVersions;
+
+    private final SessionService sessionService;
+
+    private final TeacherService teacherService;
+
+    private final MeterRegistry meterRegistry;
+
+    public ConditionalGetConfig(ResourceVersions resourceVersions,
+                                SessionService sessionService,
+                                TeacherService teacherService,
+                                MeterRegistry meterRegistry) {
+        this.resourceVersions = resourceVersions;
+        this.sessionService = sessionService;
+        this.teacherService = teacherService;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // Upcoming sessions also depend on the clock, so they are not validated by version alone
+        registry.addInterceptor(new ConditionalGetInterceptor("sessions",
+                        request -> "true".equals(request.getParameter("upcoming")) ? null : this.resourceVersions.sessions(),
+                        this.meterRegistry))
+                .addPathPatterns("/api/session", "/api/session/*")
+                .excludePathPatterns("/api/session/events", "/api/session/export", SESSION_PATH);
+        // A single session is validated by its edit and participants versions; PUT compares the version part
+        registry.addInterceptor(new ConditionalGetInterceptor(SessionController.ETAG_PREFIX,
+                        this::sessionVersion, this.meterRegistry))
+                .addPathPatterns(SESSION_PATH);
+        registry.addInterceptor(new ConditionalGetInterceptor("teachers",
+                        request -> this.teacherService.getVersion(), this.meterRegistry))
+                .addPathPatterns("/api/teacher", "/api/teacher/*");
+        registry.addInterceptor(new ConditionalGetInterceptor("users",
+                        request -> this.resourceVersions.users(), this.meterRegistry))
+                .addPathPatterns("/api/user/*");
+    }
+
+    private String sessionVersion(HttpServletRequest request) {
+        @SuppressWarnings("unchecked")
+        Map<String, String> variables = (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        return this.sessionService.getRepresentationVersion(Long.valueOf(variables.get("id")));
+    }
+}
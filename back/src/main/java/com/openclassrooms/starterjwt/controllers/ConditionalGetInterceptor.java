@@ -0,0 +1,67 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.function.Function;
+
+/**
+ * Adds a strong ETag built from the resource's version to GET responses, and answers a matching
+ * If-None-Match with 304 before the handler runs, so unchanged data is neither queried nor
+ * serialized. A null version marks the request as not cacheable. Cacheable responses are sent
+ * with "no-cache, private" instead of Spring Security's default "no-store", so that browsers keep
+ * them and revalidate.
+ */
+public class ConditionalGetInterceptor implements HandlerInterceptor {
+    private final String resource;
+
+    private final Function<HttpServletRequest, String> version;
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    private final Counter unconditional;
+
+    public ConditionalGetInterceptor(String resource, Function<HttpServletRequest, String> version, MeterRegistry meterRegistry) {
+        this.resource = resource;
+        this.version = version;
+        this.hits = counter(meterRegistry, resource, "hit");
+        this.misses = counter(meterRegistry, resource, "miss");
+        this.unconditional = counter(meterRegistry, resource, "unconditional");
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!HttpMethod.GET.matches(request.getMethod()) && !HttpMethod.HEAD.matches(request.getMethod())) {
+            return true;
+        }
+        String current = this.version.apply(request);
+        if (current == null) {
+            return true;
+        }
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+        boolean conditional = request.getHeader(HttpHeaders.IF_NONE_MATCH) != null;
+        if (new ServletWebRequest(request, response).checkNotModified(this.resource + "-" + current)) {
+            this.hits.increment();
+            return false;
+        }
+        (conditional ? this.misses : this.unconditional).increment();
+        return true;
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String resource, String result) {
+        return Counter.builder("http.conditional.requests")
+                .tag("resource", resource)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
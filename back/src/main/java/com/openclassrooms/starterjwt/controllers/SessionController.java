@@ -2,29 +2,65 @@ package com.openclassrooms.starterjwt.controllers;
 
 
 import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.dto.SessionPageDto;
+import com.openclassrooms.starterjwt.exception.PreconditionFailedException;
+import com.openclassrooms.starterjwt.exception.ServiceUnavailableException;
 import com.openclassrooms.starterjwt.mapper.SessionMapper;
 import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.payload.request.EnrollmentRequest;
+import com.openclassrooms.starterjwt.payload.response.MessageResponse;
+import com.openclassrooms.starterjwt.payload.response.SessionConflictResponse;
+import com.openclassrooms.starterjwt.repository.SessionFilter;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import com.openclassrooms.starterjwt.services.AttendanceExportService;
+import com.openclassrooms.starterjwt.services.EnrollmentService;
+import com.openclassrooms.starterjwt.services.SessionEventBroadcaster;
+import com.openclassrooms.starterjwt.services.ParticipationStatus;
+import com.openclassrooms.starterjwt.services.SessionPage;
 import com.openclassrooms.starterjwt.services.SessionService;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
 import java.util.List;
 
-@CrossOrigin(origins = "*", maxAge = 3600)
+@CrossOrigin(origins = "*", maxAge = 3600, exposedHeaders = HttpHeaders.ETAG)
 @RestController
 @RequestMapping("/api/session")
 @Log4j2
 public class SessionController {
+    static final String ETAG_PREFIX = "session";
+
     private final SessionMapper sessionMapper;
     private final SessionService sessionService;
+    private final EnrollmentService enrollmentService;
+    private final SessionEventBroadcaster sessionEventBroadcaster;
+    private final AttendanceExportService attendanceExportService;
 
+    @Value("${oc.app.sessionPageSize:20}")
+    private int defaultPageSize;
 
     public SessionController(SessionService sessionService,
-                             SessionMapper sessionMapper) {
+                             SessionMapper sessionMapper,
+                             EnrollmentService enrollmentService,
+                             SessionEventBroadcaster sessionEventBroadcaster,
+                             AttendanceExportService attendanceExportService) {
         this.sessionMapper = sessionMapper;
         this.sessionService = sessionService;
+        this.enrollmentService = enrollmentService;
+        this.sessionEventBroadcaster = sessionEventBroadcaster;
+        this.attendanceExportService = attendanceExportService;
     }
 
     @GetMapping("/{id}")
@@ -42,13 +78,94 @@ public class SessionController {
         }
     }
 
+    /**
+     * Lists sessions. Without any of the paging or filter parameters, the response is the plain
+     * array of every session it has always been. Passing {@code size}, {@code cursor},
+     * {@code upcoming}, {@code from}, {@code to}, {@code teacher_id}, {@code available} or
+     * {@code sort} opts in to keyset paging: the response is then a {@link SessionPageDto} whose
+     * {@code nextCursor}, sent back as {@code cursor}, reads the following page. {@code unpaged}
+     * forces the plain array and is kept for the clients that already send it.
+     */
     @GetMapping()
-    public ResponseEntity<?> findAll() {
-        List<Session> sessions = this.sessionService.findAll();
+    public ResponseEntity<?> findAll(@RequestParam(value = "cursor", required = false) String cursor,
+                                     @RequestParam(value = "size", required = false) Integer size,
+                                     @RequestParam(value = "upcoming", defaultValue = "false") boolean upcoming,
+                                     @RequestParam(value = "unpaged", defaultValue = "false") boolean unpaged,
+                                     @RequestParam(value = "from", required = false)
+                                     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date from,
+                                     @RequestParam(value = "to", required = false)
+                                     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date to,
+                                     @RequestParam(value = "teacher_id", required = false) Long teacherId,
+                                     @RequestParam(value = "available", defaultValue = "false") boolean available,
+                                     @RequestParam(value = "sort", required = false) String sort) {
+        boolean paged = cursor != null || size != null || upcoming || from != null || to != null
+                || teacherId != null || available || sort != null;
+        if (unpaged || !paged) {
+            List<Session> sessions = this.sessionService.findAll();
+
+            return ResponseEntity.ok().body(this.sessionMapper.toDto(sessions));
+        }
+
+        if (sort != null && !"asc".equals(sort) && !"desc".equals(sort)) {
+            return ResponseEntity.badRequest().build();
+        }
+        SessionFilter filter = SessionFilter.builder()
+                .from(from)
+                .to(to)
+                .teacherId(teacherId)
+                .available(available)
+                .descending("desc".equals(sort))
+                .build();
+        SessionPage page = this.sessionService.findPage(cursor, size != null ? size : this.defaultPageSize, upcoming, filter);
+
+        return ResponseEntity.ok().body(new SessionPageDto(this.sessionMapper.toDto(page.getSessions()), page.getNextCursor()));
+    }
+
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events() {
+        return this.sessionEventBroadcaster.subscribe();
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(value = "format", defaultValue = "csv") String format,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date to) {
+        if (!isAdmin()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        AttendanceExportService.Format exportFormat;
+        MediaType mediaType;
+        if ("csv".equals(format)) {
+            exportFormat = AttendanceExportService.Format.CSV;
+            mediaType = new MediaType("text", "csv", StandardCharsets.UTF_8);
+        } else if ("ndjson".equals(format)) {
+            exportFormat = AttendanceExportService.Format.NDJSON;
+            mediaType = new MediaType("application", "x-ndjson", StandardCharsets.UTF_8);
+        } else {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok()
+                .contentType(mediaType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"attendance." + format + "\"")
+                .body(out -> this.attendanceExportService.export(exportFormat, from, to, out));
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<?> search(@RequestParam("q") String query,
+                                    @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        List<Session> sessions = this.sessionService.search(query, limit);
 
         return ResponseEntity.ok().body(this.sessionMapper.toDto(sessions));
     }
 
+    @GetMapping("/summary")
+    public ResponseEntity<?> findAllSummaries() {
+        return ResponseEntity.ok().body(this.sessionService.findAllSummaries());
+    }
+
     @PostMapping()
     public ResponseEntity<?> create(@Valid @RequestBody SessionDto sessionDto) {
         log.info(sessionDto);
@@ -59,12 +176,37 @@ public class SessionController {
         return ResponseEntity.ok().body(this.sessionMapper.toDto(session));
     }
 
+    /**
+     * Edits a session. If-Match must carry the ETag the client last saw for it, so that an edit
+     * based on an outdated copy is refused with 412 and the current session instead of silently
+     * undoing someone else's change.
+     */
     @PutMapping("{id}")
-    public ResponseEntity<?> update(@PathVariable("id") String id, @Valid @RequestBody SessionDto sessionDto) {
+    public ResponseEntity<?> update(@PathVariable("id") String id,
+                                    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                    @Valid @RequestBody SessionDto sessionDto) {
         try {
-            Session session = this.sessionService.update(Long.parseLong(id), this.sessionMapper.toEntity(sessionDto));
+            Long sessionId = Long.valueOf(id);
+            if (ifMatch == null) {
+                return ResponseEntity.status(HttpStatus.PRECONDITION_REQUIRED)
+                        .body(new MessageResponse("Error: If-Match header with the session ETag is required"));
+            }
 
-            return ResponseEntity.ok().body(this.sessionMapper.toDto(session));
+            try {
+                Session session = this.sessionService.update(sessionId, this.sessionMapper.toEntity(sessionDto), parseIfMatch(ifMatch));
+
+                return ResponseEntity.ok().eTag(eTag(session)).body(this.sessionMapper.toDto(session));
+            } catch (PreconditionFailedException e) {
+                Session current = this.sessionService.getById(sessionId);
+                if (current == null) {
+                    return ResponseEntity.notFound().build();
+                }
+
+                return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                        .eTag(eTag(current))
+                        .body(new SessionConflictResponse("Error: Session was modified, reapply your changes and retry",
+                                this.sessionMapper.toDto(current)));
+            }
         } catch (NumberFormatException e) {
             return ResponseEntity.badRequest().build();
         }
@@ -89,14 +231,26 @@ public class SessionController {
     @PostMapping("{id}/participate/{userId}")
     public ResponseEntity<?> participate(@PathVariable("id") String id, @PathVariable("userId") String userId) {
         try {
-            this.sessionService.participate(Long.parseLong(id), Long.parseLong(userId));
+            ParticipationStatus status = this.sessionService.participate(Long.parseLong(id), Long.parseLong(userId));
 
+            if (status == ParticipationStatus.WAITLISTED) {
+                return ResponseEntity.accepted().build();
+            }
             return ResponseEntity.ok().build();
         } catch (NumberFormatException e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
+    @PostMapping("participate")
+    public ResponseEntity<?> enroll(@Valid @RequestBody EnrollmentRequest enrollmentRequest) {
+        if (!isAdmin()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        return ResponseEntity.ok().body(this.enrollmentService.enroll(enrollmentRequest.getEnrollments()));
+    }
+
     @DeleteMapping("{id}/participate/{userId}")
     public ResponseEntity<?> noLongerParticipate(@PathVariable("id") String id, @PathVariable("userId") String userId) {
         try {
@@ -107,4 +261,46 @@ public class SessionController {
             return ResponseEntity.badRequest().build();
         }
     }
+
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<?> handleServiceUnavailable(ServiceUnavailableException e) {
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .build();
+    }
+
+    private static String eTag(Session session) {
+        return "\"" + ETAG_PREFIX + "-"
+                + SessionService.representationVersion(session.getVersion(), session.getParticipantsVersion()) + "\"";
+    }
+
+    /**
+     * Reads the edit version named by If-Match, null for "*". The participants version that follows
+     * it in {@link #eTag(Session)} is ignored, so people joining or leaving do not fail an edit. A
+     * tag that cannot come from {@link #eTag(Session)}, weak tags included, yields a version that
+     * never matches.
+     */
+    private static Long parseIfMatch(String ifMatch) {
+        String tag = ifMatch.trim();
+        if ("*".equals(tag)) {
+            return null;
+        }
+        String prefix = "\"" + ETAG_PREFIX + "-";
+        if (tag.startsWith(prefix) && tag.endsWith("\"") && tag.length() > prefix.length() + 1) {
+            String representation = tag.substring(prefix.length(), tag.length() - 1);
+            int separator = representation.indexOf('-');
+            try {
+                return Long.valueOf(separator < 0 ? representation : representation.substring(0, separator));
+            } catch (NumberFormatException e) {
+                // Not one of ours
+            }
+        }
+        return -1L;
+    }
+
+    private static boolean isAdmin() {
+        Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        return principal instanceof UserDetailsImpl && Boolean.TRUE.equals(((UserDetailsImpl) principal).getAdmin());
+    }
 }
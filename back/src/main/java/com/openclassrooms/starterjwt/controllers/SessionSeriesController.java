@@ -0,0 +1,79 @@
+package com.openclassrooms.starterjwt.controllers;
+
+
+import com.openclassrooms.starterjwt.dto.SessionSeriesDto;
+import com.openclassrooms.starterjwt.mapper.SessionSeriesMapper;
+import com.openclassrooms.starterjwt.models.SessionSeries;
+import com.openclassrooms.starterjwt.payload.request.SessionSeriesUpdateRequest;
+import com.openclassrooms.starterjwt.services.SessionSeriesService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import javax.validation.Valid;
+import java.util.Date;
+
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/api/session/series")
+public class SessionSeriesController {
+    private final SessionSeriesMapper sessionSeriesMapper;
+    private final SessionSeriesService sessionSeriesService;
+
+
+    public SessionSeriesController(SessionSeriesService sessionSeriesService,
+                                   SessionSeriesMapper sessionSeriesMapper) {
+        this.sessionSeriesMapper = sessionSeriesMapper;
+        this.sessionSeriesService = sessionSeriesService;
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> findById(@PathVariable("id") String id) {
+        try {
+            SessionSeries series = this.sessionSeriesService.getById(Long.valueOf(id));
+
+            if (series == null) {
+                return ResponseEntity.notFound().build();
+            }
+
+            return ResponseEntity.ok().body(this.sessionSeriesMapper.toDto(series));
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @PostMapping()
+    public ResponseEntity<?> create(@Valid @RequestBody SessionSeriesDto sessionSeriesDto) {
+        SessionSeries series = this.sessionSeriesService.create(this.sessionSeriesMapper.toEntity(sessionSeriesDto));
+
+        return ResponseEntity.ok().body(this.sessionSeriesMapper.toDto(series));
+    }
+
+    @PutMapping("{id}")
+    public ResponseEntity<?> update(@PathVariable("id") String id,
+                                    @RequestParam(value = "from", required = false)
+                                    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date from,
+                                    @Valid @RequestBody SessionSeriesUpdateRequest request) {
+        try {
+            this.sessionSeriesService.updateFrom(Long.parseLong(id), from != null ? from : new Date(),
+                    this.sessionSeriesMapper.toEntity(request));
+
+            return ResponseEntity.ok().build();
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @DeleteMapping("{id}")
+    public ResponseEntity<?> cancel(@PathVariable("id") String id,
+                                    @RequestParam(value = "from", required = false)
+                                    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date from) {
+        try {
+            this.sessionSeriesService.cancelFrom(Long.parseLong(id), from != null ? from : new Date());
+
+            return ResponseEntity.ok().build();
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
@@ -11,8 +11,10 @@ import org.mapstruct.Mappings;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -27,8 +29,11 @@ public abstract class SessionMapper implements EntityMapper<SessionDto, Session>
 
     @Mappings({
             @Mapping(source = "description", target = "description"),
-            @Mapping(target = "teacher", expression = "java(sessionDto.getTeacher_id() != null ? this.teacherService.findById(sessionDto.getTeacher_id()) : null)"),
-            @Mapping(target = "users", expression = "java(Optional.ofNullable(sessionDto.getUsers()).orElseGet(Collections::emptyList).stream().map(user_id -> { User user = this.userService.findById(user_id); if (user != null) { return user; } return null; }).collect(Collectors.toList()))"),
+            @Mapping(target = "teacher", expression = "java(sessionDto.getTeacher_id() != null ? this.teacherService.getReference(sessionDto.getTeacher_id()) : null)"),
+            @Mapping(target = "users", expression = "java(toUsers(sessionDto.getUsers()))"),
+            @Mapping(target = "seriesId", ignore = true),
+            @Mapping(target = "version", ignore = true),
+            @Mapping(target = "participantsVersion", ignore = true),
     })
     public abstract Session toEntity(SessionDto sessionDto);
 
@@ -39,4 +44,18 @@ public abstract class SessionMapper implements EntityMapper<SessionDto, Session>
             @Mapping(target = "users", expression = "java(Optional.ofNullable(session.getUsers()).orElseGet(Collections::emptyList).stream().map(u -> u.getId()).collect(Collectors.toList()))"),
     })
     public abstract SessionDto toDto(Session session);
+
+    /**
+     * Turns participant ids into references, in request order and without duplicates, without
+     * loading any user. As for the teacher, an unknown id is only detected on flush.
+     */
+    protected List<User> toUsers(List<Long> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return userIds.stream()
+                .distinct()
+                .map(this.userService::getReference)
+                .collect(Collectors.toList());
+    }
 }
@@ -0,0 +1,41 @@
+package com.openclassrooms.starterjwt.mapper;
+
+import com.openclassrooms.starterjwt.dto.SessionSeriesDto;
+import com.openclassrooms.starterjwt.models.SessionSeries;
+import com.openclassrooms.starterjwt.payload.request.SessionSeriesUpdateRequest;
+import com.openclassrooms.starterjwt.services.TeacherService;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.Mappings;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+@Component
+@Mapper(componentModel = "spring")
+public abstract class SessionSeriesMapper implements EntityMapper<SessionSeriesDto, SessionSeries> {
+
+    @Autowired
+    TeacherService teacherService;
+
+    @Mappings({
+            @Mapping(target = "teacher", expression = "java(dto.getTeacher_id() != null ? this.teacherService.findById(dto.getTeacher_id()) : null)"),
+    })
+    public abstract SessionSeries toEntity(SessionSeriesDto dto);
+
+    @Mappings({
+            @Mapping(target = "id", ignore = true),
+            @Mapping(target = "frequency", ignore = true),
+            @Mapping(target = "interval", ignore = true),
+            @Mapping(target = "startDate", ignore = true),
+            @Mapping(target = "endDate", ignore = true),
+            @Mapping(target = "createdAt", ignore = true),
+            @Mapping(target = "updatedAt", ignore = true),
+            @Mapping(target = "teacher", expression = "java(request.getTeacher_id() != null ? this.teacherService.findById(request.getTeacher_id()) : null)"),
+    })
+    public abstract SessionSeries toEntity(SessionSeriesUpdateRequest request);
+
+    @Mappings({
+            @Mapping(source = "series.teacher.id", target = "teacher_id"),
+    })
+    public abstract SessionSeriesDto toDto(SessionSeries series);
+}
@@ -0,0 +1,41 @@
+package com.openclassrooms.starterjwt.models;
+
+import lombok.*;
+import lombok.experimental.Accessors;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "REVOKED_TOKENS", uniqueConstraints = {
+    @UniqueConstraint(columnNames = "token_id")
+})
+@Data
+@Accessors(chain = true)
+@EqualsAndHashCode(of = {"id"})
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class RevokedToken {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(columnDefinition = "INTEGER")
+    private Long id;
+
+    @NotNull
+    @Size(max = 64)
+    @Column(name = "token_id")
+    private String tokenId;
+
+    @NotNull
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt;
+
+    // For user-wide entries, tokens issued up to this instant are rejected
+    @NotNull
+    @Column(name = "revoked_at")
+    private LocalDateTime revokedAt;
+}
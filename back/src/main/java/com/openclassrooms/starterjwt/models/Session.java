@@ -1,6 +1,6 @@
 package com.openclassrooms.starterjwt.models;
 
-
+import com.openclassrooms.starterjwt.services.EntityChangeListener;
 import lombok.*;
 import lombok.experimental.Accessors;
 import org.hibernate.annotations.UpdateTimestamp;
@@ -8,6 +8,7 @@ import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import javax.persistence.*;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
@@ -16,8 +17,12 @@ import java.util.Date;
 import java.util.List;
 
 @Entity
-@Table(name = "SESSIONS")
-@EntityListeners(AuditingEntityListener.class)
+@Table(name = "SESSIONS", indexes = {
+    @Index(name = "idx_sessions_date_id", columnList = "date, id"),
+    @Index(name = "idx_sessions_teacher_date_id", columnList = "teacher_id, date, id"),
+    @Index(name = "idx_sessions_series_date", columnList = "series_id, date")
+})
+@EntityListeners({AuditingEntityListener.class, EntityChangeListener.class})
 @Data
 @Accessors(chain = true)
 @EqualsAndHashCode(of = {"id"})
@@ -26,8 +31,13 @@ import java.util.List;
 @AllArgsConstructor
 @ToString
 public class Session {
+    // Pooled table ids rather than IDENTITY, which forces an immediate insert per entity and so
+    // disables JDBC insert batching. Keys are INTEGER in db/migration, as in every table.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "session_ids")
+    @TableGenerator(name = "session_ids", table = "ID_GENERATORS", pkColumnName = "name",
+            valueColumnName = "next_val", pkColumnValue = "SESSIONS", allocationSize = 50)
+    @Column(columnDefinition = "INTEGER")
     private Long id;
 
     @NotBlank
@@ -41,15 +51,41 @@ public class Session {
     @Size(max = 2500)
     private String description;
 
+    @Min(1)
+    private Integer capacity;
+
+    @Column(name = "participant_count", insertable = false, updatable = false,
+            columnDefinition = "INT NOT NULL DEFAULT 0")
+    private int participantCount;
+
+    // Moves with every edit, not with participants joining or leaving, so that edits are only
+    // rejected when they would overwrite another edit
+    @Version
+    @Column(columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+    private long version;
+
+    // Moves with every participant joining or leaving; with the version, it identifies the
+    // representation served by GET /api/session/{id}
+    @Column(name = "participants_version", insertable = false, updatable = false,
+            columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+    private long participantsVersion;
+
+    @Column(name = "series_id", updatable = false, columnDefinition = "INTEGER")
+    private Long seriesId;
+
     @OneToOne
-    @JoinColumn(name = "teacher_id", referencedColumnName = "id")
+    @JoinColumn(name = "teacher_id", referencedColumnName = "id", columnDefinition = "INTEGER")
     private Teacher teacher;
 
+    // Participants may be uninitialized references, which printing would load one by one
+    @ToString.Exclude
     @ManyToMany(fetch = FetchType.EAGER)
     @JoinTable(
             name = "PARTICIPATE",
-            joinColumns = @JoinColumn( name = "session_id" ),
-            inverseJoinColumns = @JoinColumn( name = "user_id" ) )
+            joinColumns = @JoinColumn( name = "session_id", columnDefinition = "INTEGER" ),
+            inverseJoinColumns = @JoinColumn( name = "user_id", columnDefinition = "INTEGER" ),
+            uniqueConstraints = @UniqueConstraint(columnNames = {"session_id", "user_id"}),
+            indexes = @Index(name = "idx_participate_user_session", columnList = "user_id, session_id") )
     private List<User> users;
 
     @CreatedDate
@@ -0,0 +1,33 @@
+package com.openclassrooms.starterjwt.payload.request;
+
+import java.util.List;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EnrollmentRequest {
+  @NotEmpty
+  @Size(max = 1000)
+  @Valid
+  private List<Item> enrollments;
+
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class Item {
+    @NotNull
+    private Long sessionId;
+
+    @NotNull
+    private Long userId;
+  }
+}
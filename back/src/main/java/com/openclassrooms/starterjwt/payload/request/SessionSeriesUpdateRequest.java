@@ -0,0 +1,29 @@
+package com.openclassrooms.starterjwt.payload.request;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SessionSeriesUpdateRequest {
+  @NotBlank
+  @Size(max = 50)
+  private String name;
+
+  @NotNull
+  private Long teacher_id;
+
+  @NotNull
+  @Size(max = 2500)
+  private String description;
+
+  @Min(1)
+  private Integer capacity;
+}
@@ -0,0 +1,21 @@
+package com.openclassrooms.starterjwt.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class EnrollmentResponse {
+  private Long sessionId;
+  private Long userId;
+  private Status status;
+
+  public enum Status {
+    ENROLLED,
+    WAITLISTED,
+    ALREADY_ENROLLED,
+    ALREADY_WAITLISTED,
+    SESSION_NOT_FOUND,
+    USER_NOT_FOUND
+  }
+}
@@ -0,0 +1,20 @@
+package com.openclassrooms.starterjwt.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class SessionChangeMessage {
+  private Long sessionId;
+  private Type type;
+  private Integer participantCount;
+  private Integer capacity;
+
+  public enum Type {
+    UPDATED,
+    PARTICIPANTS,
+    DELETED,
+    RESYNC
+  }
+}
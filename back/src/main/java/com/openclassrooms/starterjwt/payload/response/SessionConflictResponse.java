@@ -0,0 +1,16 @@
+package com.openclassrooms.starterjwt.payload.response;
+
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Body of a 412 answer to an edit based on an outdated session. Carries the current session, whose
+ * ETag comes in the response headers, so the client can reapply its changes and retry at once.
+ */
+@Getter
+@AllArgsConstructor
+public class SessionConflictResponse {
+  private String message;
+  private SessionDto current;
+}
@@ -0,0 +1,31 @@
+package com.openclassrooms.starterjwt.repository;
+
+import com.openclassrooms.starterjwt.models.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, Long> {
+    List<RevokedToken> findByExpiresAtAfter(LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("delete from RevokedToken r where r.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+
+    /** Extends an existing entry when the same key is revoked again with a later expiry. */
+    @Modifying
+    @Transactional
+    @Query("update RevokedToken r set r.revokedAt = :revokedAt, r.expiresAt = :expiresAt "
+            + "where r.tokenId = :tokenId and r.expiresAt < :expiresAt")
+    int renew(@Param("tokenId") String tokenId,
+              @Param("revokedAt") LocalDateTime revokedAt,
+              @Param("expiresAt") LocalDateTime expiresAt);
+}
@@ -0,0 +1,28 @@
+package com.openclassrooms.starterjwt.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.util.Date;
+
+/**
+ * Optional criteria for listing sessions: a date range ({@code from} inclusive, {@code to}
+ * exclusive), a teacher, sessions with a free seat only, and the sort direction on (date, id).
+ */
+@Getter
+@Builder(toBuilder = true)
+@AllArgsConstructor
+@EqualsAndHashCode
+public class SessionFilter {
+    private final Date from;
+
+    private final Date to;
+
+    private final Long teacherId;
+
+    private final boolean available;
+
+    private final boolean descending;
+}
@@ -1,9 +1,134 @@
 package com.openclassrooms.starterjwt.repository;
 
+import com.openclassrooms.starterjwt.dto.SessionSummary;
 import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
 @Repository
-public interface SessionRepository  extends JpaRepository<Session, Long> {
+public interface SessionRepository  extends JpaRepository<Session, Long>, SessionRepositoryCustom {
+    @Query("select distinct s from Session s"
+            + " left join fetch s.teacher"
+            + " left join fetch s.users"
+            + " where s.id in :ids")
+    List<Session> findAllWithUsersByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select new com.openclassrooms.starterjwt.dto.SessionSummary("
+            + "s.id, s.name, s.date, t.id, t.firstName, t.lastName, count(u.id))"
+            + " from Session s"
+            + " left join s.teacher t"
+            + " left join s.users u"
+            + " group by s.id, s.name, s.date, t.id, t.firstName, t.lastName"
+            + " order by s.date asc, s.id asc")
+    List<SessionSummary> findAllSummaries();
+
+    @Modifying
+    @Query(value = "insert into PARTICIPATE (session_id, user_id)"
+            + " select s.id, u.id from SESSIONS s join USERS u on u.id = :userId"
+            + " where s.id = :sessionId"
+            + " and not exists (select 1 from PARTICIPATE p where p.session_id = :sessionId and p.user_id = :userId)",
+            nativeQuery = true)
+    int addParticipant(@Param("sessionId") Long sessionId, @Param("userId") Long userId);
+
+    @Modifying
+    @Query(value = "delete from PARTICIPATE where session_id = :sessionId and user_id = :userId", nativeQuery = true)
+    int removeParticipant(@Param("sessionId") Long sessionId, @Param("userId") Long userId);
+
+    @Modifying
+    @Query(value = "update SESSIONS set participant_count = participant_count + 1, participants_version = participants_version + 1"
+            + " where id = :id and (capacity is null or participant_count < capacity)",
+            nativeQuery = true)
+    int reserveSeat(@Param("id") Long id);
+
+    /** Like {@link #reserveSeat}, but leaves the seat to the waitlist when anyone is on it. */
+    @Modifying
+    @Query(value = "update SESSIONS set participant_count = participant_count + 1, participants_version = participants_version + 1"
+            + " where id = :id and (capacity is null or participant_count < capacity)"
+            + " and not exists (select 1 from WAITLIST w where w.session_id = :id)",
+            nativeQuery = true)
+    int reserveSeatIfNoneWaiting(@Param("id") Long id);
+
+    @Modifying
+    @Query(value = "update SESSIONS set participant_count = participant_count - 1, participants_version = participants_version + 1"
+            + " where id = :id and participant_count > 0",
+            nativeQuery = true)
+    int releaseSeat(@Param("id") Long id);
+
+    @Modifying
+    @Query(value = "update SESSIONS set participant_count ="
+            + " (select count(*) from PARTICIPATE p where p.session_id = :id)"
+            + " where id = :id",
+            nativeQuery = true)
+    int syncParticipantCount(@Param("id") Long id);
+
+    @Query(value = "select 1 from SESSIONS where id = :id for update", nativeQuery = true)
+    Integer lockById(@Param("id") Long id);
+
+    @Query("select s.id from Session s where s.seriesId = :seriesId and s.date >= :from")
+    List<Long> findSeriesIdsFrom(@Param("seriesId") Long seriesId, @Param("from") Date from);
+
+    @Modifying
+    @Query("update Session s set s.name = :name, s.description = :description, s.teacher = :teacher,"
+            + " s.capacity = :capacity, s.updatedAt = current_timestamp, s.version = s.version + 1"
+            + " where s.seriesId = :seriesId and s.date >= :from")
+    int updateSeriesFrom(@Param("seriesId") Long seriesId, @Param("from") Date from,
+                         @Param("name") String name, @Param("description") String description,
+                         @Param("teacher") Teacher teacher, @Param("capacity") Integer capacity);
+
+    @Modifying
+    @Query(value = "delete from PARTICIPATE where session_id in"
+            + " (select id from SESSIONS where series_id = :seriesId and date >= :from)",
+            nativeQuery = true)
+    int removeSeriesParticipantsFrom(@Param("seriesId") Long seriesId, @Param("from") Date from);
+
+    @Modifying
+    @Query(value = "delete from SESSIONS where series_id = :seriesId and date >= :from", nativeQuery = true)
+    int deleteSeriesFrom(@Param("seriesId") Long seriesId, @Param("from") Date from);
+
+    /**
+     * Summarizes the table so that any committed change gives a different result: inserts move
+     * the highest id, deletes the count, edits the sum of versions and participation changes the
+     * sum of participants versions.
+     */
+    @Query("select count(s.id), coalesce(max(s.id), 0), coalesce(sum(s.version), 0),"
+            + " coalesce(sum(s.participantsVersion), 0), max(s.updatedAt) from Session s")
+    List<Object[]> findFingerprint();
+
+    @Query("select s.id, s.name, s.description from Session s")
+    List<Object[]> findAllSearchableText();
+
+    @Query("select s.id, s.name, s.description from Session s where s.id = :id")
+    List<Object[]> findSearchableTextById(@Param("id") Long id);
+
+    @Query("select s.version, s.participantsVersion from Session s where s.id = :id")
+    List<Object[]> findVersionsById(@Param("id") Long id);
+
+    @Query("select s.participantCount, s.capacity from Session s where s.id = :id")
+    List<Object[]> findSeatsById(@Param("id") Long id);
+
+    @Query("select u.id from Session s join s.users u where s.id = :id")
+    List<Long> findParticipantIds(@Param("id") Long id);
+
+    @Query("select distinct u.id from Session s join s.users u where s.seriesId = :seriesId and s.date >= :from")
+    List<Long> findSeriesParticipantIdsFrom(@Param("seriesId") Long seriesId, @Param("from") Date from);
+
+    /** Dates and ids of the sessions {@code userId} attends, read from PARTICIPATE by user. */
+    @Query(value = "select s.id, s.date from PARTICIPATE p join SESSIONS s on s.id = p.session_id"
+            + " where p.user_id = :userId order by s.date, s.id", nativeQuery = true)
+    List<Object[]> findAttendedByUserId(@Param("userId") Long userId);
+
+    @Query("select new com.openclassrooms.starterjwt.dto.SessionSummary("
+            + "s.id, s.name, s.date, t.id, t.firstName, t.lastName, cast(s.participantCount as long))"
+            + " from Session s"
+            + " left join s.teacher t"
+            + " where s.id in :ids")
+    List<SessionSummary> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,17 @@
+package com.openclassrooms.starterjwt.repository;
+
+import com.openclassrooms.starterjwt.models.Session;
+
+import java.util.Date;
+import java.util.List;
+
+public interface SessionRepositoryCustom {
+    /**
+     * Returns at most {@code limit} session ids matching {@code filter} in (date, id) order,
+     * starting after the given position when {@code afterDate} is not null.
+     */
+    List<Long> findPageIds(SessionFilter filter, Date afterDate, Long afterId, int limit);
+
+    /** Reloads the session and its participants after they were changed by native statements. */
+    void refresh(Session session);
+}
@@ -0,0 +1,62 @@
+package com.openclassrooms.starterjwt.repository;
+
+import com.openclassrooms.starterjwt.models.Session;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the page query from the criteria actually given, so that each combination is a plain
+ * range scan: (date, id) without a teacher, (teacher_id, date, id) with one. The free seat
+ * criterion compares the participant counter to the capacity and needs no join.
+ */
+public class SessionRepositoryImpl implements SessionRepositoryCustom {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Long> findPageIds(SessionFilter filter, Date afterDate, Long afterId, int limit) {
+        StringBuilder jpql = new StringBuilder("select s.id from Session s where 1 = 1");
+        Map<String, Object> parameters = new HashMap<>();
+
+        if (filter.getFrom() != null) {
+            jpql.append(" and s.date >= :from");
+            parameters.put("from", filter.getFrom());
+        }
+        if (filter.getTo() != null) {
+            jpql.append(" and s.date < :to");
+            parameters.put("to", filter.getTo());
+        }
+        if (filter.getTeacherId() != null) {
+            jpql.append(" and s.teacher.id = :teacherId");
+            parameters.put("teacherId", filter.getTeacherId());
+        }
+        if (filter.isAvailable()) {
+            jpql.append(" and (s.capacity is null or s.participantCount < s.capacity)");
+        }
+
+        String direction = filter.isDescending() ? "desc" : "asc";
+        if (afterDate != null) {
+            String comparison = filter.isDescending() ? "<" : ">";
+            jpql.append(" and (s.date ").append(comparison).append(" :afterDate")
+                    .append(" or (s.date = :afterDate and s.id ").append(comparison).append(" :afterId))");
+            parameters.put("afterDate", afterDate);
+            parameters.put("afterId", afterId);
+        }
+        jpql.append(" order by s.date ").append(direction).append(", s.id ").append(direction);
+
+        TypedQuery<Long> query = this.entityManager.createQuery(jpql.toString(), Long.class);
+        parameters.forEach(query::setParameter);
+        return query.setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public void refresh(Session session) {
+        this.entityManager.refresh(session);
+    }
+}
@@ -2,8 +2,13 @@ package com.openclassrooms.starterjwt.repository;
 
 import com.openclassrooms.starterjwt.models.Teacher;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface TeacherRepository  extends JpaRepository<Teacher, Long> {
+    @Query("select count(t.id), max(t.updatedAt) from Teacher t")
+    List<Object[]> findFingerprint();
 }
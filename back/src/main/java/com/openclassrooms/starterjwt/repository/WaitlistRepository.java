@@ -0,0 +1,44 @@
+package com.openclassrooms.starterjwt.repository;
+
+import com.openclassrooms.starterjwt.models.WaitlistEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface WaitlistRepository extends JpaRepository<WaitlistEntry, Long> {
+    Optional<WaitlistEntry> findFirstBySessionIdOrderByIdAsc(Long sessionId);
+
+    @Modifying
+    @Query(value = "insert into WAITLIST (session_id, user_id, created_at)"
+            + " select s.id, u.id, current_timestamp from SESSIONS s join USERS u on u.id = :userId"
+            + " where s.id = :sessionId"
+            + " and not exists (select 1 from PARTICIPATE p where p.session_id = :sessionId and p.user_id = :userId)"
+            + " and not exists (select 1 from WAITLIST w where w.session_id = :sessionId and w.user_id = :userId)",
+            nativeQuery = true)
+    int addToWaitlist(@Param("sessionId") Long sessionId, @Param("userId") Long userId);
+
+    @Modifying
+    @Query("delete from WaitlistEntry w where w.sessionId = :sessionId and w.userId = :userId")
+    int removeFromWaitlist(@Param("sessionId") Long sessionId, @Param("userId") Long userId);
+
+    @Modifying
+    @Query("delete from WaitlistEntry w where w.sessionId = :sessionId")
+    int deleteBySessionId(@Param("sessionId") Long sessionId);
+
+    @Modifying
+    @Query(value = "delete from WAITLIST where session_id in"
+            + " (select id from SESSIONS where series_id = :seriesId and date >= :from)",
+            nativeQuery = true)
+    int deleteBySeriesFrom(@Param("seriesId") Long seriesId, @Param("from") Date from);
+
+    @Query("select distinct w.sessionId from WaitlistEntry w, Session s"
+            + " where s.id = w.sessionId and s.seriesId = :seriesId and s.date >= :from")
+    List<Long> findSessionIdsBySeriesFrom(@Param("seriesId") Long seriesId, @Param("from") Date from);
+}
@@ -1,6 +1,7 @@
 package com.openclassrooms.starterjwt.security;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -16,7 +17,11 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 
 import com.openclassrooms.starterjwt.security.jwt.AuthEntryPointJwt;
 import com.openclassrooms.starterjwt.security.jwt.AuthTokenFilter;
-import com.openclassrooms.starterjwt.security.services.UserDetailsServiceImpl;
+import com.openclassrooms.starterjwt.security.services.BCryptStrengthCalibrator;
+import com.openclassrooms.starterjwt.security.services.BoundedPasswordEncoder;
+import com.openclassrooms.starterjwt.security.services.UserDetailsCache;
+
+import io.micrometer.core.instrument.MeterRegistry;
 
 @Configuration
 @EnableWebSecurity
@@ -26,11 +31,38 @@ import com.openclassrooms.starterjwt.security.services.UserDetailsServiceImpl;
     prePostEnabled = true)
 public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
   @Autowired
-  UserDetailsServiceImpl userDetailsService;
+  UserDetailsCache userDetailsCache;
 
   @Autowired
   private AuthEntryPointJwt unauthorizedHandler;
 
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Value("${oc.app.bcryptStrength:0}")
+  private int bcryptStrength;
+
+  @Value("${oc.app.bcryptTargetMs:250}")
+  private long bcryptTargetMs;
+
+  @Value("${oc.app.bcryptMinStrength:10}")
+  private int bcryptMinStrength;
+
+  @Value("${oc.app.bcryptMaxStrength:14}")
+  private int bcryptMaxStrength;
+
+  @Value("${oc.app.passwordHashThreads:0}")
+  private int passwordHashThreads;
+
+  @Value("${oc.app.passwordHashQueueCapacity:64}")
+  private int passwordHashQueueCapacity;
+
+  @Value("${server.tomcat.threads.max:200}")
+  private int requestThreads;
+
+  @Value("${oc.app.passwordHashRetryAfterSeconds:1}")
+  private long passwordHashRetryAfterSeconds;
+
   @Bean
   public AuthTokenFilter authenticationJwtTokenFilter() {
     return new AuthTokenFilter();
@@ -38,7 +70,7 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
 
   @Override
   public void configure(AuthenticationManagerBuilder authenticationManagerBuilder) throws Exception {
-    authenticationManagerBuilder.userDetailsService(userDetailsService).passwordEncoder(passwordEncoder());
+    authenticationManagerBuilder.userDetailsService(userDetailsCache).passwordEncoder(passwordEncoder());
   }
 
   @Bean
@@ -49,7 +81,12 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
 
   @Bean
   public PasswordEncoder passwordEncoder() {
-    return new BCryptPasswordEncoder();
+    int strength = bcryptStrength > 0
+        ? bcryptStrength
+        : BCryptStrengthCalibrator.calibrate(bcryptTargetMs, bcryptMinStrength, bcryptMaxStrength);
+    int threads = passwordHashThreads > 0 ? passwordHashThreads : Runtime.getRuntime().availableProcessors();
+    return new BoundedPasswordEncoder(new BCryptPasswordEncoder(strength), threads, passwordHashQueueCapacity,
+        requestThreads, passwordHashRetryAfterSeconds, meterRegistry);
   }
 
   @Override
@@ -0,0 +1,186 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.Date;
+import java.util.UUID;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.PrematureJwtException;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SignatureException;
+import io.jsonwebtoken.impl.TextCodec;
+
+/**
+ * HS512 JWT issuer and verifier sharing one precomputed key. Tokens are byte-for-byte compatible
+ * with the ones jjwt produces for the same secret: the secret is base64-decoded the same way and
+ * the header is the same {@code {"alg":"HS512"}}. The MAC instances are kept per thread and the
+ * JSON reader and writer are shared, so issuing or verifying a token allocates only its own
+ * strings and claims.
+ */
+@Component
+public class JwtCodec {
+  private static final String HEADER = Base64.getUrlEncoder().withoutPadding()
+      .encodeToString("{\"alg\":\"HS512\"}".getBytes(StandardCharsets.UTF_8));
+
+  private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+  private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+  private static final ObjectMapper MAPPER = new ObjectMapper()
+      .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+      .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+  private static final ObjectWriter PAYLOAD_WRITER = MAPPER.writerFor(Payload.class);
+
+  private static final ObjectReader PAYLOAD_READER = MAPPER.readerFor(Payload.class);
+
+  private final long expirationMs;
+
+  private final ThreadLocal<Mac> macs;
+
+  public JwtCodec(@Value("${oc.app.jwtSecret}") String jwtSecret,
+      @Value("${oc.app.jwtExpirationMs}") long expirationMs) {
+    this.expirationMs = expirationMs;
+    SecretKeySpec key = new SecretKeySpec(TextCodec.BASE64.decode(jwtSecret), SignatureAlgorithm.HS512.getJcaName());
+    this.macs = ThreadLocal.withInitial(() -> newMac(key));
+    // Key check: an unusable secret fails at startup rather than on the first request
+    newMac(key);
+  }
+
+  public String issue(UserDetailsImpl principal) {
+    long nowSeconds = System.currentTimeMillis() / 1000;
+
+    Payload payload = new Payload();
+    payload.jti = UUID.randomUUID().toString();
+    payload.sub = principal.getUsername();
+    payload.id = principal.getId();
+    payload.firstName = principal.getFirstName();
+    payload.lastName = principal.getLastName();
+    payload.admin = principal.getAdmin();
+    payload.iat = nowSeconds;
+    payload.exp = nowSeconds + expirationMs / 1000;
+
+    String signingInput;
+    try {
+      signingInput = HEADER + '.' + ENCODER.encodeToString(PAYLOAD_WRITER.writeValueAsBytes(payload));
+    } catch (IOException e) {
+      throw new IllegalStateException("Cannot serialize JWT claims", e);
+    }
+    return signingInput + '.' + ENCODER.encodeToString(sign(signingInput));
+  }
+
+  /**
+   * Checks the signature, expiry and not-before time of a compact token and returns its claims.
+   * The claims are only parsed once the signature matches.
+   *
+   * @throws IllegalArgumentException if the token is empty
+   * @throws MalformedJwtException if the token is not a well-formed HS512 JWT
+   * @throws SignatureException if the signature does not match
+   * @throws ExpiredJwtException if the token has expired
+   * @throws PrematureJwtException if the token is not valid yet
+   */
+  public VerifiedToken verify(String token) {
+    if (token == null || token.isEmpty()) {
+      throw new IllegalArgumentException("JWT String argument cannot be null or empty.");
+    }
+
+    int firstDot = token.indexOf('.');
+    int lastDot = token.lastIndexOf('.');
+    if (firstDot < 0 || lastDot == firstDot || token.indexOf('.', firstDot + 1) != lastDot) {
+      throw new MalformedJwtException("JWT strings must contain exactly 2 period characters.");
+    }
+    if (!token.regionMatches(0, HEADER, 0, firstDot) || firstDot != HEADER.length()) {
+      throw new MalformedJwtException("Only HS512 signed tokens are accepted.");
+    }
+
+    byte[] actual;
+    try {
+      actual = DECODER.decode(token.substring(lastDot + 1));
+    } catch (IllegalArgumentException e) {
+      throw new MalformedJwtException("Unable to read JWT signature: " + e.getMessage(), e);
+    }
+    // Nothing from the token is parsed before it is known to come from us
+    if (!MessageDigest.isEqual(sign(token.substring(0, lastDot)), actual)) {
+      throw new SignatureException("JWT signature does not match locally computed signature.");
+    }
+
+    Payload payload;
+    try {
+      payload = PAYLOAD_READER.readValue(DECODER.decode(token.substring(firstDot + 1, lastDot)));
+    } catch (IllegalArgumentException | IOException e) {
+      throw new MalformedJwtException("Unable to read JWT: " + e.getMessage(), e);
+    }
+
+    long now = System.currentTimeMillis();
+    Date expiration = payload.exp != null ? new Date(payload.exp * 1000) : null;
+    if (expiration != null && expiration.getTime() <= now) {
+      throw new ExpiredJwtException(null, null, "JWT expired at " + expiration);
+    }
+    if (payload.nbf != null && payload.nbf * 1000 > now) {
+      throw new PrematureJwtException(null, null, "JWT must not be accepted before " + new Date(payload.nbf * 1000));
+    }
+
+    return VerifiedToken.builder()
+        .tokenId(payload.jti)
+        .subject(payload.sub)
+        .issuedAt(payload.iat != null ? new Date(payload.iat * 1000) : null)
+        .expiration(expiration)
+        .userId(payload.id)
+        .firstName(payload.firstName)
+        .lastName(payload.lastName)
+        .admin(payload.admin)
+        .build();
+  }
+
+  private byte[] sign(String signingInput) {
+    return macs.get().doFinal(signingInput.getBytes(StandardCharsets.US_ASCII));
+  }
+
+  private static Mac newMac(SecretKeySpec key) {
+    try {
+      Mac mac = Mac.getInstance(key.getAlgorithm());
+      mac.init(key);
+      return mac;
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("Cannot initialize JWT signing key", e);
+    }
+  }
+
+  static class Payload {
+    public String jti;
+
+    public String sub;
+
+    public Long id;
+
+    public String firstName;
+
+    public String lastName;
+
+    public Boolean admin;
+
+    public Long iat;
+
+    public Long nbf;
+
+    public Long exp;
+  }
+}
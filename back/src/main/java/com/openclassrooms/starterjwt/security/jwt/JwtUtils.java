@@ -1,10 +1,5 @@
 package com.openclassrooms.starterjwt.security.jwt;
 
-import java.util.Date;
-
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
 
@@ -14,46 +9,47 @@ import io.jsonwebtoken.*;
 
 @Component
 public class JwtUtils {
-  private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
+  private final JwtCodec jwtCodec;
 
-  @Value("${oc.app.jwtSecret}")
-  private String jwtSecret;
+  private final SecurityEventLogger securityEventLogger;
 
-  @Value("${oc.app.jwtExpirationMs}")
-  private int jwtExpirationMs;
+  JwtUtils(JwtCodec jwtCodec, SecurityEventLogger securityEventLogger) {
+    this.jwtCodec = jwtCodec;
+    this.securityEventLogger = securityEventLogger;
+  }
 
   public String generateJwtToken(Authentication authentication) {
 
     UserDetailsImpl userPrincipal = (UserDetailsImpl) authentication.getPrincipal();
 
-    return Jwts.builder()
-        .setSubject((userPrincipal.getUsername()))
-        .setIssuedAt(new Date())
-        .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
-        .signWith(SignatureAlgorithm.HS512, jwtSecret)
-        .compact();
+    return jwtCodec.issue(userPrincipal);
   }
 
   public String getUserNameFromJwtToken(String token) {
-    return Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(token).getBody().getSubject();
+    return jwtCodec.verify(token).getSubject();
   }
 
   public boolean validateJwtToken(String authToken) {
+    return parseJwtToken(authToken) != null;
+  }
+
+  public VerifiedToken parseJwtToken(String authToken) {
     try {
-      Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(authToken);
-      return true;
+      return jwtCodec.verify(authToken);
     } catch (SignatureException e) {
-      logger.error("Invalid JWT signature: {}", e.getMessage());
+      securityEventLogger.record("jwt.signature", e.getMessage());
     } catch (MalformedJwtException e) {
-      logger.error("Invalid JWT token: {}", e.getMessage());
+      securityEventLogger.record("jwt.malformed", e.getMessage());
     } catch (ExpiredJwtException e) {
-      logger.error("JWT token is expired: {}", e.getMessage());
+      securityEventLogger.record("jwt.expired", e.getMessage());
+    } catch (PrematureJwtException e) {
+      securityEventLogger.record("jwt.premature", e.getMessage());
     } catch (UnsupportedJwtException e) {
-      logger.error("JWT token is unsupported: {}", e.getMessage());
+      securityEventLogger.record("jwt.unsupported", e.getMessage());
     } catch (IllegalArgumentException e) {
-      logger.error("JWT claims string is empty: {}", e.getMessage());
+      securityEventLogger.record("jwt.empty", e.getMessage());
     }
 
-    return false;
+    return null;
   }
 }
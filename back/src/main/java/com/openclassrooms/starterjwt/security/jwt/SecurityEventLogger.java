@@ -0,0 +1,81 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Logging for authentication failures that stays cheap under a flood of bad requests. Every
+ * event bumps a counter; at most one event per type is logged in full per sampling interval, and
+ * the rest are reported as a single summary line with their count on the next flush.
+ */
+@Component
+public class SecurityEventLogger {
+  private static final Logger logger = LoggerFactory.getLogger(SecurityEventLogger.class);
+
+  private final ConcurrentMap<String, EventStats> events = new ConcurrentHashMap<>();
+
+  private final MeterRegistry meterRegistry;
+
+  private final long sampleIntervalMs;
+
+  public SecurityEventLogger(MeterRegistry meterRegistry,
+      @Value("${oc.app.securityLogSampleMs:10000}") long sampleIntervalMs) {
+    this.meterRegistry = meterRegistry;
+    this.sampleIntervalMs = sampleIntervalMs;
+  }
+
+  public void record(String event, String detail) {
+    EventStats stats = events.computeIfAbsent(event, this::newStats);
+    stats.counter.increment();
+
+    long now = System.currentTimeMillis();
+    long lastLogged = stats.lastLoggedMs.get();
+    if (now - lastLogged >= sampleIntervalMs && stats.lastLoggedMs.compareAndSet(lastLogged, now)) {
+      logger.warn("Security event {}: {}", event, detail);
+    } else {
+      stats.suppressed.increment();
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${oc.app.securityLogSummaryMs:60000}")
+  public void flush() {
+    events.forEach((event, stats) -> {
+      long suppressed = stats.suppressed.sumThenReset();
+      if (suppressed > 0) {
+        logger.warn("Security event {}: {} more occurrences not logged individually", event, suppressed);
+      }
+    });
+  }
+
+  long suppressed(String event) {
+    EventStats stats = events.get(event);
+    return stats != null ? stats.suppressed.sum() : 0;
+  }
+
+  private EventStats newStats(String event) {
+    return new EventStats(Counter.builder("auth.security.events").tag("event", event).register(meterRegistry));
+  }
+
+  private static class EventStats {
+    private final Counter counter;
+
+    private final LongAdder suppressed = new LongAdder();
+
+    private final AtomicLong lastLoggedMs = new AtomicLong(Long.MIN_VALUE / 2);
+
+    EventStats(Counter counter) {
+      this.counter = counter;
+    }
+  }
+}
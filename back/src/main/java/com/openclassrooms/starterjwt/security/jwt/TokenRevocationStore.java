@@ -0,0 +1,189 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.openclassrooms.starterjwt.models.RevokedToken;
+import com.openclassrooms.starterjwt.repository.RevokedTokenRepository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Denylist of revoked tokens. Lookups first go through an in-memory Bloom filter, so the usual
+ * "not revoked" answer costs a hash and a few bit reads; only filter hits are confirmed against
+ * the exact set. Entries are persisted in REVOKED_TOKENS and the in-memory view is rebuilt from
+ * it at startup and on every sync, which also picks up revocations made by other nodes and drops
+ * entries whose token has expired anyway. Revocations and the swap of a rebuilt view take the
+ * same lock, so a revocation made while a sync reads the table ends up in the new view.
+ */
+@Component
+public class TokenRevocationStore {
+  private static final Logger logger = LoggerFactory.getLogger(TokenRevocationStore.class);
+
+  private static final double FALSE_POSITIVE_RATE = 0.01;
+
+  private static final String USER_KEY_PREFIX = "user:";
+
+  private final RevokedTokenRepository revokedTokenRepository;
+
+  private final long jwtExpirationMs;
+
+  private final int expectedRevocations;
+
+  private final Object lock = new Object();
+
+  private volatile Denylist denylist;
+
+  public TokenRevocationStore(RevokedTokenRepository revokedTokenRepository,
+      @Value("${oc.app.jwtExpirationMs}") long jwtExpirationMs,
+      @Value("${oc.app.revocationExpectedEntries:100000}") int expectedRevocations,
+      MeterRegistry meterRegistry) {
+    this.revokedTokenRepository = revokedTokenRepository;
+    this.jwtExpirationMs = jwtExpirationMs;
+    this.expectedRevocations = expectedRevocations;
+    this.denylist = new Denylist(new ConcurrentHashMap<>(), new BloomFilter(expectedRevocations, FALSE_POSITIVE_RATE));
+
+    Gauge.builder("auth.jwt.revoked", this, store -> store.denylist.entries.size()).register(meterRegistry);
+  }
+
+  /**
+   * Tells whether the token itself was revoked, or whether it was issued before its user was. A
+   * token without an issue time is treated as issued before any user revocation.
+   */
+  public boolean isRevoked(VerifiedToken token) {
+    if (find(token.getTokenId()) != null) {
+      return true;
+    }
+    Entry userEntry = token.getUserId() != null ? find(USER_KEY_PREFIX + token.getUserId()) : null;
+    return userEntry != null
+        && (token.getIssuedAt() == null || token.getIssuedAt().getTime() <= userEntry.revokedAt);
+  }
+
+  /**
+   * Revokes a single token until it expires. A token without an expiry is kept for as long as
+   * the tokens issued here live.
+   */
+  public void revoke(VerifiedToken token) {
+    if (token.getTokenId() != null) {
+      long now = System.currentTimeMillis();
+      long expiresAt = token.getExpiration() != null ? token.getExpiration().getTime() : now + jwtExpirationMs;
+      revoke(token.getTokenId(), now, expiresAt);
+    }
+  }
+
+  /**
+   * Revokes every token issued so far to the given user, e.g. when the account is deleted. Tokens
+   * issued afterwards are not affected.
+   */
+  public void revokeUser(Long userId) {
+    long now = System.currentTimeMillis();
+    revoke(USER_KEY_PREFIX + userId, now, now + jwtExpirationMs);
+  }
+
+  @PostConstruct
+  @Scheduled(initialDelayString = "${oc.app.revocationSyncMs:60000}", fixedDelayString = "${oc.app.revocationSyncMs:60000}")
+  public void sync() {
+    LocalDateTime now = LocalDateTime.now();
+    revokedTokenRepository.deleteExpired(now);
+    List<RevokedToken> persisted = revokedTokenRepository.findByExpiresAtAfter(now);
+
+    Map<String, Entry> rebuilt = new ConcurrentHashMap<>();
+    for (RevokedToken token : persisted) {
+      rebuilt.put(token.getTokenId(), new Entry(toEpochMs(token.getRevokedAt()), toEpochMs(token.getExpiresAt())));
+    }
+
+    synchronized (lock) {
+      // Keeps what this node revoked meanwhile, or before its write reached the table
+      long nowMs = System.currentTimeMillis();
+      denylist.entries.forEach((key, entry) -> {
+        if (entry.expiresAt > nowMs) {
+          rebuilt.merge(key, entry, (stored, local) -> local.expiresAt > stored.expiresAt ? local : stored);
+        }
+      });
+
+      BloomFilter rebuiltFilter = new BloomFilter(Math.max(expectedRevocations, rebuilt.size() * 2), FALSE_POSITIVE_RATE);
+      rebuilt.keySet().forEach(rebuiltFilter::put);
+      denylist = new Denylist(rebuilt, rebuiltFilter);
+    }
+    logger.debug("Rebuilt token denylist with {} entries", rebuilt.size());
+  }
+
+  private Entry find(String key) {
+    Denylist current = denylist;
+    if (key == null || !current.filter.mightContain(key)) {
+      return null;
+    }
+    Entry entry = current.entries.get(key);
+    return entry != null && entry.expiresAt > System.currentTimeMillis() ? entry : null;
+  }
+
+  private void revoke(String key, long revokedAtMs, long expiresAtMs) {
+    synchronized (lock) {
+      Denylist current = denylist;
+      Entry existing = current.entries.get(key);
+      if (existing != null && existing.expiresAt >= expiresAtMs) {
+        return;
+      }
+      current.entries.put(key, new Entry(revokedAtMs, expiresAtMs));
+      current.filter.put(key);
+    }
+
+    LocalDateTime revokedAt = toLocalDateTime(revokedAtMs);
+    LocalDateTime expiresAt = toLocalDateTime(expiresAtMs);
+    try {
+      revokedTokenRepository.save(RevokedToken.builder()
+          .tokenId(key)
+          .revokedAt(revokedAt)
+          .expiresAt(expiresAt)
+          .build());
+    } catch (DataIntegrityViolationException e) {
+      logger.debug("Token {} was already revoked", key);
+      revokedTokenRepository.renew(key, revokedAt, expiresAt);
+    }
+  }
+
+  private static LocalDateTime toLocalDateTime(long epochMs) {
+    return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMs), ZoneId.systemDefault());
+  }
+
+  private static long toEpochMs(LocalDateTime dateTime) {
+    return Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant()).getTime();
+  }
+
+  private static final class Entry {
+    private final long revokedAt;
+
+    private final long expiresAt;
+
+    private Entry(long revokedAt, long expiresAt) {
+      this.revokedAt = revokedAt;
+      this.expiresAt = expiresAt;
+    }
+  }
+
+  private static final class Denylist {
+    private final Map<String, Entry> entries;
+
+    private final BloomFilter filter;
+
+    private Denylist(Map<String, Entry> entries, BloomFilter filter) {
+      this.entries = entries;
+      this.filter = filter;
+    }
+  }
+}
@@ -0,0 +1,43 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import java.util.Date;
+
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+
+import lombok.Builder;
+import lombok.Getter;
+
+@Builder
+@Getter
+public class VerifiedToken {
+  private final String tokenId;
+
+  private final String subject;
+
+  private final Date issuedAt;
+
+  private final Date expiration;
+
+  private final Long userId;
+
+  private final String firstName;
+
+  private final String lastName;
+
+  private final Boolean admin;
+
+  public boolean hasPrincipalClaims() {
+    return userId != null;
+  }
+
+  public UserDetailsImpl toUserDetails() {
+    return UserDetailsImpl
+            .builder()
+            .id(userId)
+            .username(subject)
+            .firstName(firstName)
+            .lastName(lastName)
+            .admin(admin)
+            .build();
+  }
+}
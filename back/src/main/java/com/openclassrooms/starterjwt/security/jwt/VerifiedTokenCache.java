@@ -0,0 +1,76 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Remembers tokens whose signature has already been checked, keyed by a SHA-256 digest of the
+ * compact token so raw bearer tokens are never kept in memory. Each entry expires together with
+ * the token it describes.
+ */
+@Component
+public class VerifiedTokenCache {
+  private final Cache<String, VerifiedToken> cache;
+
+  public VerifiedTokenCache(@Value("${oc.app.jwtCacheMaxSize:10000}") long maxSize, MeterRegistry meterRegistry) {
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfter(new TokenExpiry())
+        .recordStats()
+        .build();
+
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwtVerifiedTokens");
+  }
+
+  public VerifiedToken get(String token, Function<String, VerifiedToken> verifier) {
+    return cache.get(digest(token), key -> verifier.apply(token));
+  }
+
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  private static String digest(String token) {
+    try {
+      MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+      return Base64.getEncoder().encodeToString(sha256.digest(token.getBytes(StandardCharsets.US_ASCII)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  private static class TokenExpiry implements Expiry<String, VerifiedToken> {
+    @Override
+    public long expireAfterCreate(String key, VerifiedToken token, long currentTime) {
+      if (token.getExpiration() == null) {
+        return 0;
+      }
+      long remainingMs = token.getExpiration().getTime() - System.currentTimeMillis();
+      return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMs));
+    }
+
+    @Override
+    public long expireAfterUpdate(String key, VerifiedToken token, long currentTime, long currentDuration) {
+      return expireAfterCreate(key, token, currentTime);
+    }
+
+    @Override
+    public long expireAfterRead(String key, VerifiedToken token, long currentTime, long currentDuration) {
+      return currentDuration;
+    }
+  }
+}
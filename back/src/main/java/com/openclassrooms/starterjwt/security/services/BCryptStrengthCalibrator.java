@@ -0,0 +1,46 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * Picks the highest BCrypt strength whose hashing time on this machine stays within a latency
+ * budget. Every strength step doubles the work, so calibration stops as soon as the next step
+ * would exceed the budget.
+ */
+public final class BCryptStrengthCalibrator {
+  private static final Logger logger = LoggerFactory.getLogger(BCryptStrengthCalibrator.class);
+
+  private static final String SAMPLE_PASSWORD = "calibration-sample";
+
+  private BCryptStrengthCalibrator() {
+  }
+
+  public static int calibrate(long targetMs, int minStrength, int maxStrength) {
+    new BCryptPasswordEncoder(4).encode(SAMPLE_PASSWORD);
+
+    int strength = minStrength;
+    for (int candidate = minStrength; candidate <= maxStrength; candidate++) {
+      long elapsedMs = measure(candidate);
+      logger.debug("BCrypt strength {} takes {} ms", candidate, elapsedMs);
+      if (elapsedMs > targetMs && candidate > minStrength) {
+        break;
+      }
+      strength = candidate;
+      if (elapsedMs * 2 > targetMs) {
+        break;
+      }
+    }
+
+    logger.info("Using BCrypt strength {} for a {} ms hashing budget", strength, targetMs);
+    return strength;
+  }
+
+  private static long measure(int strength) {
+    BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+    long start = System.nanoTime();
+    encoder.encode(SAMPLE_PASSWORD);
+    return (System.nanoTime() - start) / 1_000_000;
+  }
+}
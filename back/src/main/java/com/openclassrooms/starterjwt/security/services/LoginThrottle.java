@@ -0,0 +1,108 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.openclassrooms.starterjwt.exception.TooManyRequestsException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * In-memory token buckets for login attempts, one per email and one per client address. Attempts
+ * are rejected before any user lookup or password hashing happens. Each bucket is locked on its
+ * own, and buckets that have refilled completely are swept since they behave like a missing one.
+ * Attempts and the sweep both go through the map's per-key lock, so a bucket is only dropped
+ * while no attempt is using it.
+ */
+@Component
+public class LoginThrottle {
+  private final ConcurrentMap<String, TokenBucket> emailBuckets = new ConcurrentHashMap<>();
+
+  private final ConcurrentMap<String, TokenBucket> addressBuckets = new ConcurrentHashMap<>();
+
+  private final int emailCapacity;
+
+  private final double emailTokensPerMs;
+
+  private final int addressCapacity;
+
+  private final double addressTokensPerMs;
+
+  private final Counter rejectedByEmail;
+
+  private final Counter rejectedByAddress;
+
+  public LoginThrottle(@Value("${oc.app.loginThrottleEmailCapacity:5}") int emailCapacity,
+      @Value("${oc.app.loginThrottleEmailPerMinute:5}") int emailPerMinute,
+      @Value("${oc.app.loginThrottleAddressCapacity:20}") int addressCapacity,
+      @Value("${oc.app.loginThrottleAddressPerMinute:60}") int addressPerMinute,
+      MeterRegistry meterRegistry) {
+    this.emailCapacity = emailCapacity;
+    this.emailTokensPerMs = emailPerMinute / 60_000.0;
+    this.addressCapacity = addressCapacity;
+    this.addressTokensPerMs = addressPerMinute / 60_000.0;
+    this.rejectedByEmail = Counter.builder("auth.login.throttled").tag("key", "email").register(meterRegistry);
+    this.rejectedByAddress = Counter.builder("auth.login.throttled").tag("key", "address").register(meterRegistry);
+    Gauge.builder("auth.login.throttle.buckets", this, LoginThrottle::size).register(meterRegistry);
+  }
+
+  public void acquire(String email, String address) {
+    long now = System.currentTimeMillis();
+
+    if (address != null) {
+      long waitMs = consume(addressBuckets, address, addressCapacity, addressTokensPerMs, now);
+      if (waitMs > 0) {
+        rejectedByAddress.increment();
+        throw new TooManyRequestsException(toSeconds(waitMs));
+      }
+    }
+
+    if (email != null) {
+      long waitMs = consume(emailBuckets, email.toLowerCase(Locale.ROOT), emailCapacity, emailTokensPerMs, now);
+      if (waitMs > 0) {
+        rejectedByEmail.increment();
+        throw new TooManyRequestsException(toSeconds(waitMs));
+      }
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${oc.app.loginThrottleSweepMs:60000}")
+  public void evictIdleBuckets() {
+    long now = System.currentTimeMillis();
+    evictIdle(emailBuckets, now);
+    evictIdle(addressBuckets, now);
+  }
+
+  int size() {
+    return emailBuckets.size() + addressBuckets.size();
+  }
+
+  // Consumes under the map's lock for the key, so the sweep cannot drop the bucket in between
+  private static long consume(ConcurrentMap<String, TokenBucket> buckets, String key, int capacity,
+      double tokensPerMs, long now) {
+    long[] waitMs = new long[1];
+    buckets.compute(key, (k, bucket) -> {
+      TokenBucket current = bucket != null ? bucket : new TokenBucket(capacity, tokensPerMs, now);
+      waitMs[0] = current.tryConsume(now);
+      return current;
+    });
+    return waitMs[0];
+  }
+
+  private static void evictIdle(ConcurrentMap<String, TokenBucket> buckets, long now) {
+    for (String key : buckets.keySet()) {
+      buckets.computeIfPresent(key, (k, bucket) -> bucket.isFull(now) ? null : bucket);
+    }
+  }
+
+  private static long toSeconds(long waitMs) {
+    return Math.max(1, (waitMs + 999) / 1000);
+  }
+}
@@ -0,0 +1,44 @@
+package com.openclassrooms.starterjwt.security.services;
+
+class TokenBucket {
+  private final double capacity;
+
+  private final double tokensPerMs;
+
+  private double tokens;
+
+  private long lastRefillMs;
+
+  TokenBucket(double capacity, double tokensPerMs, long nowMs) {
+    this.capacity = capacity;
+    this.tokensPerMs = tokensPerMs;
+    this.tokens = capacity;
+    this.lastRefillMs = nowMs;
+  }
+
+  /**
+   * Takes one token if available.
+   *
+   * @return 0 when a token was taken, otherwise the number of milliseconds until one is available
+   */
+  synchronized long tryConsume(long nowMs) {
+    refill(nowMs);
+    if (tokens >= 1) {
+      tokens -= 1;
+      return 0;
+    }
+    return (long) Math.ceil((1 - tokens) / tokensPerMs);
+  }
+
+  synchronized boolean isFull(long nowMs) {
+    refill(nowMs);
+    return tokens >= capacity;
+  }
+
+  private void refill(long nowMs) {
+    if (nowMs > lastRefillMs) {
+      tokens = Math.min(capacity, tokens + (nowMs - lastRefillMs) * tokensPerMs);
+      lastRefillMs = nowMs;
+    }
+  }
+}
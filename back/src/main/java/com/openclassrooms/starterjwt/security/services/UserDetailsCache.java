@@ -0,0 +1,58 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Read-through cache in front of {@link UserDetailsServiceImpl}, keyed by email. Unknown emails
+ * are not cached, entries are dropped as soon as the account is created or deleted and refreshed
+ * when a password hash is upgraded.
+ */
+@Component
+public class UserDetailsCache implements UserDetailsService, UserDetailsPasswordService {
+  private final UserDetailsServiceImpl userDetailsService;
+
+  private final LoadingCache<String, UserDetails> cache;
+
+  public UserDetailsCache(UserDetailsServiceImpl userDetailsService,
+      @Value("${oc.app.userCacheMaxSize:10000}") long maxSize,
+      @Value("${oc.app.userCacheTtlMs:300000}") long ttlMs,
+      MeterRegistry meterRegistry) {
+    this.userDetailsService = userDetailsService;
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfterWrite(Duration.ofMillis(ttlMs))
+        .recordStats()
+        .build(userDetailsService::loadUserByUsername);
+
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, "userDetails");
+  }
+
+  @Override
+  public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+    return cache.get(username);
+  }
+
+  @Override
+  public UserDetails updatePassword(UserDetails user, String newPassword) {
+    UserDetails updated = userDetailsService.updatePassword(user, newPassword);
+    cache.put(updated.getUsername(), updated);
+    return updated;
+  }
+
+  public void evict(String email) {
+    cache.invalidate(email);
+  }
+}
@@ -0,0 +1,220 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Writes one row per session participant, plus one row for each session without participants,
+ * straight from a forward-only cursor to the response. Nothing is collected on the way, so memory
+ * stays flat whatever the number of rows. On MySQL the driver streams rows one by one; other
+ * databases read them in chunks of {@link #FETCH_SIZE}.
+ */
+@Service
+public class AttendanceExportService {
+    public enum Format {
+        CSV,
+        NDJSON
+    }
+
+    static final String[] COLUMNS = {
+            "session_id", "session_name", "session_date", "teacher_id",
+            "user_id", "email", "first_name", "last_name"
+    };
+
+    private static final int FETCH_SIZE = 1000;
+
+    private static final int FLUSH_EVERY = 1000;
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AttendanceExportService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void export(Format format, Date from, Date to, OutputStream out) throws IOException {
+        RowWriter writer = format == Format.CSV ? new CsvRowWriter(out) : new NdjsonRowWriter(out);
+        try {
+            this.jdbcTemplate.query(connection -> prepare(connection, from, to), rs -> {
+                int rows = 0;
+                while (rs.next()) {
+                    writer.write(rs);
+                    if (++rows % FLUSH_EVERY == 0) {
+                        writer.flush();
+                    }
+                }
+                return null;
+            });
+            writer.flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static PreparedStatement prepare(Connection connection, Date from, Date to) throws SQLException {
+        StringBuilder sql = new StringBuilder("select s.id, s.name, s.date, s.teacher_id, u.id, u.email, u.first_name, u.last_name"
+                + " from SESSIONS s"
+                + " left join PARTICIPATE p on p.session_id = s.id"
+                + " left join USERS u on u.id = p.user_id");
+        List<Timestamp> parameters = new ArrayList<>();
+        if (from != null) {
+            sql.append(parameters.isEmpty() ? " where" : " and").append(" s.date >= ?");
+            parameters.add(new Timestamp(from.getTime()));
+        }
+        if (to != null) {
+            sql.append(parameters.isEmpty() ? " where" : " and").append(" s.date < ?");
+            parameters.add(new Timestamp(to.getTime()));
+        }
+        // Follows the session primary key and the (session_id, user_id) key, so no sort is needed
+        sql.append(" order by s.id, p.user_id");
+
+        PreparedStatement statement = connection.prepareStatement(sql.toString(),
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        boolean mysql = "MySQL".equals(connection.getMetaData().getDatabaseProductName());
+        statement.setFetchSize(mysql ? Integer.MIN_VALUE : FETCH_SIZE);
+        for (int i = 0; i < parameters.size(); i++) {
+            statement.setTimestamp(i + 1, parameters.get(i));
+        }
+        return statement;
+    }
+
+    private static String formatDate(Timestamp date) {
+        return date == null ? null : DateTimeFormatter.ISO_INSTANT.format(date.toInstant());
+    }
+
+    private static Long getLong(ResultSet rs, int column) throws SQLException {
+        long value = rs.getLong(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private interface RowWriter {
+        void write(ResultSet rs) throws SQLException;
+
+        void flush();
+    }
+
+    private static final class CsvRowWriter implements RowWriter {
+        private final Writer writer;
+
+        private CsvRowWriter(OutputStream out) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            this.writer.write(String.join(",", COLUMNS));
+            this.writer.write("\r\n");
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException {
+            try {
+                this.writer.write(String.valueOf(rs.getLong(1)));
+                this.writer.write(',');
+                this.writer.write(escape(rs.getString(2)));
+                this.writer.write(',');
+                this.writer.write(escape(formatDate(rs.getTimestamp(3))));
+                this.writer.write(',');
+                this.writer.write(escape(getLong(rs, 4)));
+                this.writer.write(',');
+                this.writer.write(escape(getLong(rs, 5)));
+                this.writer.write(',');
+                this.writer.write(escape(rs.getString(6)));
+                this.writer.write(',');
+                this.writer.write(escape(rs.getString(7)));
+                this.writer.write(',');
+                this.writer.write(escape(rs.getString(8)));
+                this.writer.write("\r\n");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void flush() {
+            try {
+                this.writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        static String escape(Object value) {
+            if (value == null) {
+                return "";
+            }
+            String text = value.toString();
+            // Keeps spreadsheets from evaluating names such as =HYPERLINK(...)
+            if (!text.isEmpty() && "=+-@".indexOf(text.charAt(0)) >= 0) {
+                text = "'" + text;
+            }
+            if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+                return '"' + text.replace("\"", "\"\"") + '"';
+            }
+            return text;
+        }
+    }
+
+    private static final class NdjsonRowWriter implements RowWriter {
+        private final JsonGenerator generator;
+
+        private NdjsonRowWriter(OutputStream out) throws IOException {
+            this.generator = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8);
+            // Rows are separated by the newline written after each of them
+            this.generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException {
+            try {
+                this.generator.writeStartObject();
+                this.generator.writeNumberField(COLUMNS[0], rs.getLong(1));
+                this.generator.writeStringField(COLUMNS[1], rs.getString(2));
+                this.generator.writeStringField(COLUMNS[2], formatDate(rs.getTimestamp(3)));
+                writeNumberOrNull(COLUMNS[3], getLong(rs, 4));
+                writeNumberOrNull(COLUMNS[4], getLong(rs, 5));
+                this.generator.writeStringField(COLUMNS[5], rs.getString(6));
+                this.generator.writeStringField(COLUMNS[6], rs.getString(7));
+                this.generator.writeStringField(COLUMNS[7], rs.getString(8));
+                this.generator.writeEndObject();
+                this.generator.writeRaw('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void flush() {
+            try {
+                this.generator.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void writeNumberOrNull(String field, Long value) throws IOException {
+            if (value == null) {
+                this.generator.writeNullField(field);
+            } else {
+                this.generator.writeNumberField(field, value);
+            }
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.payload.request.EnrollmentRequest;
+import com.openclassrooms.starterjwt.payload.response.EnrollmentResponse;
+import com.openclassrooms.starterjwt.payload.response.EnrollmentResponse.Status;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Enrolls many users into many sessions at once. Sessions, users and existing participations are
+ * read with one set-based query each, the affected session rows are locked in id order, and all
+ * PARTICIPATE, WAITLIST and counter writes go out as JDBC batches in the same transaction. Seats
+ * are allocated in request order with the same capacity and waitlist rules as a single
+ * participation.
+ */
+@Service
+public class EnrollmentService {
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    private final UserRepository userRepository;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public EnrollmentService(NamedParameterJdbcTemplate jdbcTemplate,
+                             UserRepository userRepository,
+                             ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.userRepository = userRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Transactional
+    public List<EnrollmentResponse> enroll(List<EnrollmentRequest.Item> items) {
+        Set<Long> sessionIds = new HashSet<>();
+        Set<Long> userIds = new HashSet<>();
+        for (EnrollmentRequest.Item item : items) {
+            sessionIds.add(item.getSessionId());
+            userIds.add(item.getUserId());
+        }
+
+        Map<Long, Integer> freeSeats = lockSessions(sessionIds);
+        Set<Long> existingUsers = new HashSet<>(this.userRepository.findExistingIds(userIds));
+        Set<Pair> participating = findPairs("PARTICIPATE", freeSeats.keySet());
+        Set<Pair> waitlisted = findPairs("WAITLIST", freeSeats.keySet());
+        // Nobody takes a seat ahead of those already waiting
+        Set<Long> withWaitlist = new HashSet<>();
+        for (Pair pair : waitlisted) {
+            withWaitlist.add(pair.sessionId);
+        }
+
+        List<EnrollmentResponse> results = new ArrayList<>(items.size());
+        Set<Pair> toParticipate = new LinkedHashSet<>();
+        Set<Pair> toWaitlist = new LinkedHashSet<>();
+        Map<Long, Integer> seatsTaken = new HashMap<>();
+        for (EnrollmentRequest.Item item : items) {
+            Pair pair = new Pair(item.getSessionId(), item.getUserId());
+            Status status;
+            if (!freeSeats.containsKey(pair.sessionId)) {
+                status = Status.SESSION_NOT_FOUND;
+            } else if (!existingUsers.contains(pair.userId)) {
+                status = Status.USER_NOT_FOUND;
+            } else if (participating.contains(pair) || toParticipate.contains(pair)) {
+                status = Status.ALREADY_ENROLLED;
+            } else if (waitlisted.contains(pair) || toWaitlist.contains(pair)) {
+                status = Status.ALREADY_WAITLISTED;
+            } else {
+                Integer free = freeSeats.get(pair.sessionId);
+                if ((free == null || free > 0) && !withWaitlist.contains(pair.sessionId)) {
+                    if (free != null) {
+                        freeSeats.put(pair.sessionId, free - 1);
+                    }
+                    seatsTaken.merge(pair.sessionId, 1, Integer::sum);
+                    toParticipate.add(pair);
+                    status = Status.ENROLLED;
+                } else {
+                    toWaitlist.add(pair);
+                    status = Status.WAITLISTED;
+                }
+            }
+            results.add(new EnrollmentResponse(pair.sessionId, pair.userId, status));
+        }
+
+        insertPairs("insert into PARTICIPATE (session_id, user_id) values (:sessionId, :userId)", toParticipate);
+        insertPairs("insert into WAITLIST (session_id, user_id, created_at) values (:sessionId, :userId, current_timestamp)", toWaitlist);
+        this.jdbcTemplate.batchUpdate("update SESSIONS set participant_count = participant_count + :taken,"
+                        + " participants_version = participants_version + 1 where id = :id",
+                seatsTaken.entrySet().stream()
+                        .map(entry -> new MapSqlParameterSource("id", entry.getKey()).addValue("taken", entry.getValue()))
+                        .toArray(SqlParameterSource[]::new));
+        if (!toParticipate.isEmpty()) {
+            this.eventPublisher.publishEvent(new SessionChangedEvent(null, true));
+            toParticipate.stream()
+                    .map(pair -> pair.userId)
+                    .distinct()
+                    .forEach(userId -> this.eventPublisher.publishEvent(new ParticipationChangedEvent(userId)));
+        }
+
+        return results;
+    }
+
+    /**
+     * Locks the existing sessions among {@code ids} and returns their free seats, null meaning
+     * unlimited.
+     */
+    private Map<Long, Integer> lockSessions(Set<Long> ids) {
+        Map<Long, Integer> freeSeats = new HashMap<>();
+        this.jdbcTemplate.query("select id, capacity, participant_count from SESSIONS where id in (:ids) order by id for update",
+                new MapSqlParameterSource("ids", ids),
+                rs -> {
+                    int capacity = rs.getInt("capacity");
+                    boolean unlimited = rs.wasNull();
+                    freeSeats.put(rs.getLong("id"), unlimited ? null : Math.max(0, capacity - rs.getInt("participant_count")));
+                });
+        return freeSeats;
+    }
+
+    private Set<Pair> findPairs(String table, Set<Long> sessionIds) {
+        Set<Pair> pairs = new HashSet<>();
+        if (sessionIds.isEmpty()) {
+            return pairs;
+        }
+        this.jdbcTemplate.query("select session_id, user_id from " + table + " where session_id in (:ids)",
+                new MapSqlParameterSource("ids", sessionIds),
+                rs -> {
+                    pairs.add(new Pair(rs.getLong("session_id"), rs.getLong("user_id")));
+                });
+        return pairs;
+    }
+
+    private void insertPairs(String sql, Set<Pair> pairs) {
+        this.jdbcTemplate.batchUpdate(sql, pairs.stream()
+                .map(pair -> new MapSqlParameterSource("sessionId", pair.sessionId).addValue("userId", pair.userId))
+                .toArray(SqlParameterSource[]::new));
+    }
+
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static final class Pair {
+        private final Long sessionId;
+
+        private final Long userId;
+    }
+}
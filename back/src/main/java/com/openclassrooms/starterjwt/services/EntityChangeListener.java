@@ -0,0 +1,36 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
+import org.springframework.context.ApplicationEventPublisher;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * Entity listener that announces every JPA write to teachers, sessions and users, so that caches
+ * and versions derived from them are refreshed once the transaction commits. Instantiated by
+ * Hibernate through Spring. Native and bulk statements bypass it and publish their own events.
+ */
+public class EntityChangeListener {
+    private final ApplicationEventPublisher eventPublisher;
+
+    public EntityChangeListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        if (entity instanceof Teacher) {
+            this.eventPublisher.publishEvent(new TeacherChangedEvent(((Teacher) entity).getId()));
+        } else if (entity instanceof Session) {
+            this.eventPublisher.publishEvent(new SessionChangedEvent(((Session) entity).getId(), false));
+        } else if (entity instanceof User) {
+            this.eventPublisher.publishEvent(new UserChangedEvent(((User) entity).getId()));
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.openclassrooms.starterjwt.services;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/** Published when a user gains or loses a seat in a session. */
+@Getter
+@AllArgsConstructor
+public class ParticipationChangedEvent {
+    private final Long userId;
+}
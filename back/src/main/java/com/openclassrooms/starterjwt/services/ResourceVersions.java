@@ -0,0 +1,111 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Versions of the session and user tables, used as cheap validators for conditional GETs. A
+ * version is derived from the table fingerprint alone, so every node computes the same value for
+ * the same data, as {@link TeacherService#getVersion()} does. The fingerprint is cached and
+ * computed again on the next read after a committed change made on this node, and on a fixed
+ * interval to pick up changes made by other nodes or by hand.
+ */
+@Component
+public class ResourceVersions {
+    private final AtomicLong sessionGeneration = new AtomicLong();
+
+    private final AtomicLong userGeneration = new AtomicLong();
+
+    private final AtomicReference<Cached> sessionVersion = new AtomicReference<>();
+
+    private final AtomicReference<Cached> userVersion = new AtomicReference<>();
+
+    private final SessionRepository sessionRepository;
+
+    private final UserRepository userRepository;
+
+    public ResourceVersions(SessionRepository sessionRepository, UserRepository userRepository) {
+        this.sessionRepository = sessionRepository;
+        this.userRepository = userRepository;
+    }
+
+    public String sessions() {
+        return version(this.sessionGeneration, this.sessionVersion, this.sessionRepository::findFingerprint);
+    }
+
+    public String users() {
+        return version(this.userGeneration, this.userVersion, this.userRepository::findFingerprint);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSessionChanged(SessionChangedEvent event) {
+        this.sessionGeneration.incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        this.userGeneration.incrementAndGet();
+    }
+
+    @Scheduled(initialDelayString = "${oc.app.resourceVersionCheckMs:10000}", fixedDelayString = "${oc.app.resourceVersionCheckMs:10000}")
+    public void checkExternalChanges() {
+        this.sessionGeneration.incrementAndGet();
+        this.userGeneration.incrementAndGet();
+    }
+
+    /**
+     * Returns the cached version if nothing invalidated it since it was computed. A version
+     * computed while a change commits is stored under the generation read before the query, so
+     * it is computed again on the following read.
+     */
+    private static String version(AtomicLong generation, AtomicReference<Cached> cache, Supplier<List<Object[]>> fingerprint) {
+        long current = generation.get();
+        Cached cached = cache.get();
+        if (cached != null && cached.generation == current) {
+            return cached.version;
+        }
+
+        String version = format(fingerprint.get());
+        cache.set(new Cached(current, version));
+        return version;
+    }
+
+    private static String format(List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return "0";
+        }
+        StringBuilder version = new StringBuilder();
+        for (Object value : rows.get(0)) {
+            if (version.length() > 0) {
+                version.append('-');
+            }
+            if (value instanceof LocalDateTime) {
+                version.append(Timestamp.valueOf((LocalDateTime) value).getTime());
+            } else {
+                version.append(value != null ? value : 0);
+            }
+        }
+        return version.toString();
+    }
+
+    private static final class Cached {
+        private final long generation;
+
+        private final String version;
+
+        private Cached(long generation, String version) {
+            this.generation = generation;
+            this.version = version;
+        }
+    }
+}
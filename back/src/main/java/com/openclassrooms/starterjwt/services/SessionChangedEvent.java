@@ -0,0 +1,17 @@
+package com.openclassrooms.starterjwt.services;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published when a session or its participants change. {@code sessionId} is null when a single
+ * statement changed the participants of several sessions, and {@code participantsOnly} tells
+ * that the session's own fields were left as they were.
+ */
+@Getter
+@AllArgsConstructor
+public class SessionChangedEvent {
+    private final Long sessionId;
+
+    private final boolean participantsOnly;
+}
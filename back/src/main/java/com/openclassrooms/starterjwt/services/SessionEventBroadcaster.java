@@ -0,0 +1,254 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.exception.ServiceUnavailableException;
+import com.openclassrooms.starterjwt.payload.response.SessionChangeMessage;
+import com.openclassrooms.starterjwt.payload.response.SessionChangeMessage.Type;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes committed session changes to Server-Sent Events subscribers. Connections are held by
+ * the servlet container's async support, so an idle subscriber costs no thread; a small sender
+ * pool writes the events.
+ *
+ * <p>Each subscriber has a bounded buffer keyed by session, so several changes to one session
+ * waiting for a slow client collapse into the latest one. When a client falls further behind
+ * than the buffer allows, its buffer is replaced by a single {@link Type#RESYNC} message telling
+ * it to reload the sessions it shows.
+ */
+@Component
+public class SessionEventBroadcaster implements DisposableBean {
+    static final String EVENT_NAME = "session";
+
+    private static final long RETRY_AFTER_SECONDS = 30;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    private final SessionRepository sessionRepository;
+
+    private final ExecutorService senders;
+
+    private final int bufferSize;
+
+    private final long timeoutMs;
+
+    private final int maxSubscribers;
+
+    private final Counter overflowCounter;
+
+    public SessionEventBroadcaster(SessionRepository sessionRepository,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${oc.app.sseBufferSize:32}") int bufferSize,
+                                   @Value("${oc.app.sseTimeoutMs:1800000}") long timeoutMs,
+                                   @Value("${oc.app.sseMaxSubscribers:10000}") int maxSubscribers,
+                                   @Value("${oc.app.sseSenderThreads:4}") int senderThreads) {
+        this.sessionRepository = sessionRepository;
+        this.bufferSize = bufferSize;
+        this.timeoutMs = timeoutMs;
+        this.maxSubscribers = maxSubscribers;
+        // Unbounded, but a subscriber never has more than one drain task queued
+        this.senders = new ThreadPoolExecutor(senderThreads, senderThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), new SenderThreadFactory());
+
+        new ExecutorServiceMetrics(this.senders, "sessionEvents", Tags.empty()).bindTo(meterRegistry);
+        Gauge.builder("session.events.subscribers", this.subscribers, Set::size).register(meterRegistry);
+        this.overflowCounter = Counter.builder("session.events.overflows").register(meterRegistry);
+    }
+
+    public SseEmitter subscribe() {
+        if (this.subscribers.size() >= this.maxSubscribers) {
+            throw new ServiceUnavailableException(RETRY_AFTER_SECONDS);
+        }
+
+        SseEmitter emitter = newEmitter(this.timeoutMs);
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> this.subscribers.remove(subscriber));
+        emitter.onTimeout(() -> this.subscribers.remove(subscriber));
+        emitter.onError(error -> this.subscribers.remove(subscriber));
+        this.subscribers.add(subscriber);
+
+        // Commits the response headers right away, so clients know they are connected
+        subscriber.heartbeat();
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSessionChanged(SessionChangedEvent event) {
+        if (this.subscribers.isEmpty()) {
+            return;
+        }
+
+        SessionChangeMessage message;
+        if (event.getSessionId() == null) {
+            message = new SessionChangeMessage(null, Type.RESYNC, null, null);
+        } else {
+            List<Object[]> seats = this.sessionRepository.findSeatsById(event.getSessionId());
+            if (seats.isEmpty()) {
+                message = new SessionChangeMessage(event.getSessionId(), Type.DELETED, null, null);
+            } else {
+                message = new SessionChangeMessage(event.getSessionId(),
+                        event.isParticipantsOnly() ? Type.PARTICIPANTS : Type.UPDATED,
+                        (Integer) seats.get(0)[0], (Integer) seats.get(0)[1]);
+            }
+        }
+        this.subscribers.forEach(subscriber -> subscriber.offer(message));
+    }
+
+    /** Keeps idle connections open through proxies and notices clients that went away. */
+    @Scheduled(initialDelayString = "${oc.app.sseHeartbeatMs:30000}", fixedDelayString = "${oc.app.sseHeartbeatMs:30000}")
+    public void heartbeat() {
+        this.subscribers.forEach(Subscriber::heartbeat);
+    }
+
+    SseEmitter newEmitter(long timeoutMs) {
+        return new SseEmitter(timeoutMs);
+    }
+
+    int getSubscriberCount() {
+        return this.subscribers.size();
+    }
+
+    @Override
+    public void destroy() {
+        this.senders.shutdownNow();
+        this.subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        this.subscribers.clear();
+    }
+
+    private static SessionChangeMessage merge(SessionChangeMessage previous, SessionChangeMessage next) {
+        // A count change must not hide that other fields of the session changed before it
+        if (previous != null && previous.getType() == Type.UPDATED && next.getType() == Type.PARTICIPANTS) {
+            return new SessionChangeMessage(next.getSessionId(), Type.UPDATED, next.getParticipantCount(), next.getCapacity());
+        }
+        return next;
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+
+        // Keyed by session id, the null key holding a resync
+        private final Map<Long, SessionChangeMessage> pending = new LinkedHashMap<>();
+
+        private boolean heartbeatPending;
+
+        private boolean draining;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        private void offer(SessionChangeMessage message) {
+            synchronized (this) {
+                if (message.getType() == Type.RESYNC) {
+                    this.pending.clear();
+                } else if (this.pending.size() >= bufferSize && !this.pending.containsKey(message.getSessionId())) {
+                    overflowCounter.increment();
+                    this.pending.clear();
+                    message = new SessionChangeMessage(null, Type.RESYNC, null, null);
+                }
+                this.pending.put(message.getSessionId(), merge(this.pending.remove(message.getSessionId()), message));
+                if (!schedule()) {
+                    return;
+                }
+            }
+            submit();
+        }
+
+        private void heartbeat() {
+            synchronized (this) {
+                this.heartbeatPending = true;
+                if (!schedule()) {
+                    return;
+                }
+            }
+            submit();
+        }
+
+        private boolean schedule() {
+            if (this.draining) {
+                return false;
+            }
+            this.draining = true;
+            return true;
+        }
+
+        private void submit() {
+            try {
+                senders.execute(this::drain);
+            } catch (RuntimeException e) {
+                // Shutting down
+                subscribers.remove(this);
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                List<SessionChangeMessage> messages;
+                boolean heartbeat;
+                synchronized (this) {
+                    if (this.pending.isEmpty() && !this.heartbeatPending) {
+                        this.draining = false;
+                        return;
+                    }
+                    messages = new ArrayList<>(this.pending.values());
+                    heartbeat = this.heartbeatPending;
+                    this.pending.clear();
+                    this.heartbeatPending = false;
+                }
+
+                try {
+                    if (heartbeat && messages.isEmpty()) {
+                        this.emitter.send(SseEmitter.event().comment("heartbeat"));
+                    }
+                    for (SessionChangeMessage message : messages) {
+                        this.emitter.send(SseEmitter.event().name(EVENT_NAME).data(message, MediaType.APPLICATION_JSON));
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    // The client went away or the emitter already completed; the container cleans up
+                    subscribers.remove(this);
+                    synchronized (this) {
+                        this.pending.clear();
+                        this.draining = false;
+                    }
+                    return;
+                }
+            }
+        }
+    }
+
+    private static class SenderThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "session-events-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
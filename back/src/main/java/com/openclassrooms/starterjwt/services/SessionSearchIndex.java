@@ -0,0 +1,343 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over session names and descriptions, ranked with BM25. Text is
+ * lower-cased and folded to plain letters, so "debutant" finds "Débutant", and French elisions
+ * and stop words are dropped. Name words weigh more than description words.
+ *
+ * <p>Postings are append-only arrays of document slots. An updated session gets a new slot and its
+ * old one is marked deleted, and the arrays are compacted once a quarter of the slots are dead.
+ * The index is built from the database at startup and kept up to date after each committed
+ * change of a session.
+ */
+@Component
+public class SessionSearchIndex {
+    private static final Logger logger = LoggerFactory.getLogger(SessionSearchIndex.class);
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "au", "aux", "avec", "ce", "ces", "dans", "de", "des", "du", "en", "et", "la", "le", "les",
+            "leur", "ou", "par", "pour", "sa", "se", "ses", "son", "sur", "un", "une", "vos", "votre",
+            "the", "and", "for", "of", "to", "with");
+
+    private static final int NAME_WEIGHT = 3;
+
+    private static final double K1 = 1.2;
+
+    private static final double B = 0.75;
+
+    private final SessionRepository sessionRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Object rebuildMonitor = new Object();
+
+    private Index index = new Index();
+
+    // Changes applied while a rebuild reads the table, replayed on the rebuilt index
+    private List<Change> pending;
+
+    public SessionSearchIndex(SessionRepository sessionRepository) {
+        this.sessionRepository = sessionRepository;
+    }
+
+    /** Returns the ids of the best matches for {@code query}, best first. */
+    public List<Long> search(String query, int limit) {
+        Set<String> terms = new LinkedHashSet<>(tokenize(query));
+        if (terms.isEmpty() || limit < 1) {
+            return List.of();
+        }
+
+        this.lock.readLock().lock();
+        try {
+            return this.index.search(terms, limit);
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    public void index(Long id, String name, String description) {
+        apply(new Change(id, termFrequencies(name, description)));
+    }
+
+    public void remove(Long id) {
+        apply(new Change(id, null));
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        synchronized (this.rebuildMonitor) {
+            this.lock.writeLock().lock();
+            try {
+                this.pending = new ArrayList<>();
+            } finally {
+                this.lock.writeLock().unlock();
+            }
+
+            Index rebuilt = new Index();
+            for (Object[] row : this.sessionRepository.findAllSearchableText()) {
+                rebuilt.put((Long) row[0], termFrequencies((String) row[1], (String) row[2]));
+            }
+
+            this.lock.writeLock().lock();
+            try {
+                this.pending.forEach(change -> change.applyTo(rebuilt));
+                this.pending = null;
+                this.index = rebuilt;
+            } finally {
+                this.lock.writeLock().unlock();
+            }
+            logger.debug("Indexed {} sessions for search", rebuilt.liveDocuments);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSessionChanged(SessionChangedEvent event) {
+        // Statements touching several sessions publish an event for each of them
+        if (event.isParticipantsOnly() || event.getSessionId() == null) {
+            return;
+        }
+
+        List<Object[]> rows = this.sessionRepository.findSearchableTextById(event.getSessionId());
+        if (rows.isEmpty()) {
+            remove(event.getSessionId());
+        } else {
+            index(event.getSessionId(), (String) rows.get(0)[1], (String) rows.get(0)[2]);
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT)
+                .replace("œ", "oe")
+                .replace("æ", "ae");
+
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARATORS.split(folded)) {
+            // Also drops what is left of elisions such as l' or d'
+            if (token.length() > 1 && !STOP_WORDS.contains(token)) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private void apply(Change change) {
+        this.lock.writeLock().lock();
+        try {
+            change.applyTo(this.index);
+            if (this.pending != null) {
+                this.pending.add(change);
+            }
+            if (this.index.needsCompaction()) {
+                this.index = this.index.compact();
+            }
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    private static Map<String, Integer> termFrequencies(String name, String description) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String term : tokenize(name)) {
+            frequencies.merge(term, NAME_WEIGHT, Integer::sum);
+        }
+        for (String term : tokenize(description)) {
+            frequencies.merge(term, 1, Integer::sum);
+        }
+        return frequencies;
+    }
+
+    private static final class Change {
+        private final Long id;
+
+        private final Map<String, Integer> terms;
+
+        private Change(Long id, Map<String, Integer> terms) {
+            this.id = id;
+            this.terms = terms;
+        }
+
+        private void applyTo(Index index) {
+            if (this.terms == null) {
+                index.delete(this.id);
+            } else {
+                index.put(this.id, this.terms);
+            }
+        }
+    }
+
+    private static final class Postings {
+        private int[] slots = new int[4];
+
+        private int[] frequencies = new int[4];
+
+        private int size;
+
+        private void add(int slot, int frequency) {
+            if (this.size == this.slots.length) {
+                this.slots = Arrays.copyOf(this.slots, this.size * 2);
+                this.frequencies = Arrays.copyOf(this.frequencies, this.size * 2);
+            }
+            this.slots[this.size] = slot;
+            this.frequencies[this.size] = frequency;
+            this.size++;
+        }
+    }
+
+    private static final class Index {
+        private final Map<String, Postings> postings = new HashMap<>();
+
+        private final Map<Long, Integer> slotsById = new HashMap<>();
+
+        private final BitSet deleted = new BitSet();
+
+        private long[] ids = new long[1024];
+
+        private int[] lengths = new int[1024];
+
+        private int slots;
+
+        private int deletedSlots;
+
+        private int liveDocuments;
+
+        private long liveLength;
+
+        private void put(Long id, Map<String, Integer> terms) {
+            delete(id);
+            if (this.slots == this.ids.length) {
+                this.ids = Arrays.copyOf(this.ids, this.slots * 2);
+                this.lengths = Arrays.copyOf(this.lengths, this.slots * 2);
+            }
+
+            int slot = this.slots++;
+            int length = 0;
+            for (Map.Entry<String, Integer> term : terms.entrySet()) {
+                this.postings.computeIfAbsent(term.getKey(), key -> new Postings()).add(slot, term.getValue());
+                length += term.getValue();
+            }
+            this.ids[slot] = id;
+            this.lengths[slot] = length;
+            this.slotsById.put(id, slot);
+            this.liveDocuments++;
+            this.liveLength += length;
+        }
+
+        private void delete(Long id) {
+            Integer slot = this.slotsById.remove(id);
+            if (slot != null) {
+                this.deleted.set(slot);
+                this.deletedSlots++;
+                this.liveDocuments--;
+                this.liveLength -= this.lengths[slot];
+            }
+        }
+
+        private boolean needsCompaction() {
+            return this.deletedSlots > 1024 && this.deletedSlots > this.slots / 4;
+        }
+
+        private Index compact() {
+            Index compacted = new Index();
+            int[] remapped = new int[this.slots];
+            compacted.ids = new long[Math.max(1024, this.liveDocuments * 2)];
+            compacted.lengths = new int[compacted.ids.length];
+            for (int slot = 0; slot < this.slots; slot++) {
+                if (!this.deleted.get(slot)) {
+                    int target = compacted.slots++;
+                    remapped[slot] = target;
+                    compacted.ids[target] = this.ids[slot];
+                    compacted.lengths[target] = this.lengths[slot];
+                    compacted.slotsById.put(this.ids[slot], target);
+                }
+            }
+            this.postings.forEach((term, postings) -> {
+                Postings live = new Postings();
+                for (int i = 0; i < postings.size; i++) {
+                    if (!this.deleted.get(postings.slots[i])) {
+                        live.add(remapped[postings.slots[i]], postings.frequencies[i]);
+                    }
+                }
+                if (live.size > 0) {
+                    compacted.postings.put(term, live);
+                }
+            });
+            compacted.liveDocuments = this.liveDocuments;
+            compacted.liveLength = this.liveLength;
+            return compacted;
+        }
+
+        private List<Long> search(Set<String> terms, int limit) {
+            if (this.liveDocuments == 0) {
+                return List.of();
+            }
+            double averageLength = (double) this.liveLength / this.liveDocuments;
+            float[] scores = new float[this.slots];
+            BitSet matched = new BitSet(this.slots);
+
+            for (String term : terms) {
+                Postings postings = this.postings.get(term);
+                if (postings == null) {
+                    continue;
+                }
+                // Document frequency counts dead slots too, which compaction keeps under a quarter
+                int frequency = Math.min(postings.size, this.liveDocuments);
+                double idf = Math.log(1 + (this.liveDocuments - frequency + 0.5) / (frequency + 0.5));
+                for (int i = 0; i < postings.size; i++) {
+                    int slot = postings.slots[i];
+                    if (this.deleted.get(slot)) {
+                        continue;
+                    }
+                    int tf = postings.frequencies[i];
+                    double norm = K1 * (1 - B + B * this.lengths[slot] / averageLength);
+                    scores[slot] += (float) (idf * tf * (K1 + 1) / (tf + norm));
+                    matched.set(slot);
+                }
+            }
+
+            PriorityQueue<Integer> best = new PriorityQueue<>(limit + 1,
+                    (a, b) -> scores[a] != scores[b] ? Float.compare(scores[a], scores[b]) : Integer.compare(b, a));
+            for (int slot = matched.nextSetBit(0); slot >= 0; slot = matched.nextSetBit(slot + 1)) {
+                best.offer(slot);
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+
+            Long[] ranked = new Long[best.size()];
+            for (int i = ranked.length - 1; i >= 0; i--) {
+                ranked[i] = this.ids[best.poll()];
+            }
+            return Arrays.asList(ranked);
+        }
+    }
+}
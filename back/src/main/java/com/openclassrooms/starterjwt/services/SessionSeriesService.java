@@ -0,0 +1,155 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.exception.NotFoundException;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.SessionSeries;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.SessionSeriesRepository;
+import com.openclassrooms.starterjwt.repository.WaitlistRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Creates recurring sessions in one go and edits or cancels the future part of a series with
+ * bulk statements. The ids of the occurrences concerned are read first, so that a change event
+ * can be published for each of them. Occurrences are inserted through Hibernate's JDBC
+ * batching, which the pooled session ids make possible.
+ */
+@Service
+public class SessionSeriesService {
+    private final SessionSeriesRepository sessionSeriesRepository;
+
+    private final SessionRepository sessionRepository;
+
+    private final WaitlistRepository waitlistRepository;
+
+    private final SessionService sessionService;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final int maxOccurrences;
+
+    public SessionSeriesService(SessionSeriesRepository sessionSeriesRepository,
+                                SessionRepository sessionRepository,
+                                WaitlistRepository waitlistRepository,
+                                SessionService sessionService,
+                                ApplicationEventPublisher eventPublisher,
+                                @Value("${oc.app.seriesMaxOccurrences:500}") int maxOccurrences) {
+        this.sessionSeriesRepository = sessionSeriesRepository;
+        this.sessionRepository = sessionRepository;
+        this.waitlistRepository = waitlistRepository;
+        this.sessionService = sessionService;
+        this.eventPublisher = eventPublisher;
+        this.maxOccurrences = maxOccurrences;
+    }
+
+    public SessionSeries getById(Long id) {
+        return this.sessionSeriesRepository.findById(id).orElse(null);
+    }
+
+    @Transactional
+    public SessionSeries create(SessionSeries series) {
+        List<Date> dates = occurrences(series, this.maxOccurrences);
+        SessionSeries saved = this.sessionSeriesRepository.save(series);
+
+        List<Session> sessions = new ArrayList<>(dates.size());
+        for (Date date : dates) {
+            sessions.add(Session.builder()
+                    .name(saved.getName())
+                    .description(saved.getDescription())
+                    .teacher(saved.getTeacher())
+                    .capacity(saved.getCapacity())
+                    .date(date)
+                    .seriesId(saved.getId())
+                    .users(new ArrayList<>())
+                    .build());
+        }
+        this.sessionRepository.saveAll(sessions);
+        return saved;
+    }
+
+    /**
+     * Applies the new template to the series and to its occurrences starting at {@code from}.
+     * Earlier occurrences keep their details, and participants keep their seats. Where the new
+     * capacity frees seats, they go to the waitlist of the occurrence.
+     */
+    @Transactional
+    public int updateFrom(Long id, Date from, SessionSeries template) {
+        SessionSeries series = this.sessionSeriesRepository.findById(id).orElseThrow(NotFoundException::new);
+        series.setName(template.getName())
+                .setDescription(template.getDescription())
+                .setTeacher(template.getTeacher())
+                .setCapacity(template.getCapacity());
+        this.sessionSeriesRepository.save(series);
+
+        List<Long> sessionIds = this.sessionRepository.findSeriesIdsFrom(id, from);
+        int updated = this.sessionRepository.updateSeriesFrom(id, from,
+                template.getName(), template.getDescription(), template.getTeacher(), template.getCapacity());
+        // The occurrences are locked by the update above
+        for (Long sessionId : this.waitlistRepository.findSessionIdsBySeriesFrom(id, from)) {
+            this.sessionService.promoteWaitlisted(sessionId);
+        }
+        publishChanges(sessionIds);
+        return updated;
+    }
+
+    /**
+     * Deletes the occurrences starting at {@code from}, together with their participations and
+     * waitlist entries. The series itself is kept for the occurrences already held.
+     */
+    @Transactional
+    public int cancelFrom(Long id, Date from) {
+        if (!this.sessionSeriesRepository.existsById(id)) {
+            throw new NotFoundException();
+        }
+
+        List<Long> sessionIds = this.sessionRepository.findSeriesIdsFrom(id, from);
+        List<Long> participantIds = this.sessionRepository.findSeriesParticipantIdsFrom(id, from);
+        this.waitlistRepository.deleteBySeriesFrom(id, from);
+        this.sessionRepository.removeSeriesParticipantsFrom(id, from);
+        int deleted = this.sessionRepository.deleteSeriesFrom(id, from);
+        publishChanges(sessionIds);
+        participantIds.forEach(userId -> this.eventPublisher.publishEvent(new ParticipationChangedEvent(userId)));
+        return deleted;
+    }
+
+    // One event per occurrence, so that listeners refresh those sessions rather than everything
+    private void publishChanges(List<Long> sessionIds) {
+        for (Long sessionId : sessionIds) {
+            this.eventPublisher.publishEvent(new SessionChangedEvent(sessionId, false));
+        }
+    }
+
+    /**
+     * Lists the dates of the series. Each date is computed from the start in the server's time
+     * zone, so a weekly class keeps its wall-clock time across daylight saving changes and a
+     * monthly one started on the 31st falls back to the end of shorter months without drifting.
+     */
+    static List<Date> occurrences(SessionSeries series, int maxOccurrences) {
+        if (series.getInterval() < 1 || series.getEndDate().before(series.getStartDate())) {
+            throw new BadRequestException();
+        }
+
+        ZonedDateTime start = series.getStartDate().toInstant().atZone(ZoneId.systemDefault());
+        List<Date> dates = new ArrayList<>();
+        for (long step = 0; ; step++) {
+            Date date = Date.from(start.plus(step * series.getInterval(), series.getFrequency().getUnit()).toInstant());
+            if (date.after(series.getEndDate())) {
+                return dates;
+            }
+            if (dates.size() == maxOccurrences) {
+                throw new BadRequestException();
+            }
+            dates.add(date);
+        }
+    }
+}
@@ -1,78 +1,331 @@
 package com.openclassrooms.starterjwt.services;
 
+import com.openclassrooms.starterjwt.dto.SessionSummary;
 import com.openclassrooms.starterjwt.exception.BadRequestException;
 import com.openclassrooms.starterjwt.exception.NotFoundException;
+import com.openclassrooms.starterjwt.exception.PreconditionFailedException;
 import com.openclassrooms.starterjwt.models.Session;
-import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.models.WaitlistEntry;
+import com.openclassrooms.starterjwt.repository.SessionFilter;
 import com.openclassrooms.starterjwt.repository.SessionRepository;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.repository.WaitlistRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 
 @Service
 public class SessionService {
+    static final int MAX_PAGE_SIZE = 100;
+
     private final SessionRepository sessionRepository;
 
     private final UserRepository userRepository;
 
-    public SessionService(SessionRepository sessionRepository, UserRepository userRepository) {
+    private final WaitlistRepository waitlistRepository;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final SessionSearchIndex sessionSearchIndex;
+
+    public SessionService(SessionRepository sessionRepository,
+                          UserRepository userRepository,
+                          WaitlistRepository waitlistRepository,
+                          ApplicationEventPublisher eventPublisher,
+                          SessionSearchIndex sessionSearchIndex) {
         this.sessionRepository = sessionRepository;
         this.userRepository = userRepository;
+        this.waitlistRepository = waitlistRepository;
+        this.eventPublisher = eventPublisher;
+        this.sessionSearchIndex = sessionSearchIndex;
     }
 
+    @Transactional
     public Session create(Session session) {
-        return this.sessionRepository.save(session);
+        return saveWithParticipantCount(session);
     }
 
+    @Transactional
     public void delete(Long id) {
+        List<Long> participantIds = this.sessionRepository.findParticipantIds(id);
+        this.waitlistRepository.deleteBySessionId(id);
         this.sessionRepository.deleteById(id);
+        participantIds.forEach(userId -> this.eventPublisher.publishEvent(new ParticipationChangedEvent(userId)));
     }
 
     public List<Session> findAll() {
         return this.sessionRepository.findAll();
     }
 
+    public List<SessionSummary> findAllSummaries() {
+        return this.sessionRepository.findAllSummaries();
+    }
+
+    /**
+     * Returns the sessions matching {@code filter} that follow {@code cursor} in (date, id)
+     * order. The page is located on an index alone, and only the sessions of that page are then
+     * loaded with their teacher and participants, so the cost does not grow with the size of the
+     * history. {@code upcoming} moves the start of the range up to now.
+     */
+    @Transactional(readOnly = true)
+    public SessionPage findPage(String cursor, int size, boolean upcoming, SessionFilter filter) {
+        if (size < 1) {
+            throw new BadRequestException();
+        }
+        if (upcoming) {
+            Date now = new Date();
+            if (filter.getFrom() == null || filter.getFrom().before(now)) {
+                filter = filter.toBuilder().from(now).build();
+            }
+        }
+        int limit = Math.min(size, MAX_PAGE_SIZE) + 1;
+
+        List<Long> ids;
+        if (cursor != null) {
+            long[] position = decodeCursor(cursor);
+            ids = this.sessionRepository.findPageIds(filter, new Date(position[0]), position[1], limit);
+        } else {
+            ids = this.sessionRepository.findPageIds(filter, null, null, limit);
+        }
+
+        boolean hasNext = ids.size() == limit;
+        if (hasNext) {
+            ids = ids.subList(0, ids.size() - 1);
+        }
+        if (ids.isEmpty()) {
+            return new SessionPage(List.of(), null);
+        }
+
+        List<Session> sessions = findAllInOrder(ids);
+        Session last = sessions.get(sessions.size() - 1);
+        return new SessionPage(sessions, hasNext ? encodeCursor(last) : null);
+    }
+
+    /** Returns the sessions best matching {@code query}, best first. */
+    @Transactional(readOnly = true)
+    public List<Session> search(String query, int limit) {
+        List<Long> ids = this.sessionSearchIndex.search(query, Math.min(limit, MAX_PAGE_SIZE));
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return findAllInOrder(ids);
+    }
+
     public Session getById(Long id) {
         return this.sessionRepository.findById(id).orElse(null);
     }
 
-    public Session update(Long id, Session session) {
-        session.setId(id);
-        return this.sessionRepository.save(session);
+    /**
+     * Identifies what GET /api/session/{id} currently returns, or null when the session does not
+     * exist. It combines the edit version with the participants version, since joining and
+     * leaving change the representation without being edits.
+     */
+    public String getRepresentationVersion(Long id) {
+        List<Object[]> rows = this.sessionRepository.findVersionsById(id);
+        if (rows.isEmpty()) {
+            return null;
+        }
+        return representationVersion((Long) rows.get(0)[0], (Long) rows.get(0)[1]);
     }
 
-    public void participate(Long id, Long userId) {
-        Session session = this.sessionRepository.findById(id).orElse(null);
-        User user = this.userRepository.findById(userId).orElse(null);
-        if (session == null || user == null) {
-            throw new NotFoundException();
+    public static String representationVersion(long version, long participantsVersion) {
+        return version + "-" + participantsVersion;
+    }
+
+    /**
+     * Applies the edited fields of {@code changes} to the session, provided it is still at
+     * {@code expectedVersion} (null accepts any version). Participants are left alone, whatever
+     * list the client sent. The version is checked again by the update statement itself, so a
+     * change committed after the session was read fails this edit rather than being overwritten,
+     * and nothing is locked for the participate path. Seats added by a larger capacity go to the
+     * waitlist first.
+     */
+    @Transactional
+    public Session update(Long id, Session changes, Long expectedVersion) {
+        Session session = this.sessionRepository.findById(id).orElseThrow(NotFoundException::new);
+        if (expectedVersion != null && session.getVersion() != expectedVersion) {
+            throw new PreconditionFailedException();
         }
 
-        boolean alreadyParticipate = session.getUsers().stream().anyMatch(o -> o.getId().equals(userId));
-        if(alreadyParticipate) {
+        Integer previousCapacity = session.getCapacity();
+        session.setName(changes.getName())
+                .setDate(changes.getDate())
+                .setDescription(changes.getDescription())
+                .setTeacher(changes.getTeacher())
+                .setCapacity(changes.getCapacity());
+        try {
+            this.sessionRepository.flush();
+        } catch (OptimisticLockingFailureException e) {
+            throw new PreconditionFailedException();
+        } catch (DataIntegrityViolationException e) {
             throw new BadRequestException();
         }
 
-        session.getUsers().add(user);
+        // The update statement above holds the row lock the promotions need
+        if (!Objects.equals(previousCapacity, session.getCapacity()) && promoteWaitlisted(id) > 0) {
+            this.sessionRepository.refresh(session);
+        }
+        return session;
+    }
+
+    /**
+     * Gives the user a seat, or a place at the end of the waitlist when the session is full or
+     * others are already waiting. Seats are taken with a conditional increment of the session's
+     * participant counter, so the session row is locked only for the rest of this short
+     * transaction and concurrent requests can never overbook. Existence is only checked on the
+     * failure paths, to tell a missing session or user (404) from an existing participation (400).
+     */
+    @Transactional
+    public ParticipationStatus participate(Long id, Long userId) {
+        if (this.sessionRepository.reserveSeatIfNoneWaiting(id) == 0) {
+            // Full or missing: lock the row so that a seat freed meanwhile is not missed
+            if (this.sessionRepository.lockById(id) == null) {
+                throw new NotFoundException();
+            }
+            if (this.sessionRepository.reserveSeatIfNoneWaiting(id) == 0) {
+                joinWaitlist(id, userId);
+                return ParticipationStatus.WAITLISTED;
+            }
+        }
+
+        int inserted;
+        try {
+            inserted = this.sessionRepository.addParticipant(id, userId);
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent request registered the same participation first
+            throw new BadRequestException();
+        }
 
-        this.sessionRepository.save(session);
+        if (inserted == 0) {
+            if (!this.userRepository.existsById(userId)) {
+                throw new NotFoundException();
+            }
+            throw new BadRequestException();
+        }
+        this.eventPublisher.publishEvent(new SessionChangedEvent(id, true));
+        this.eventPublisher.publishEvent(new ParticipationChangedEvent(userId));
+        return ParticipationStatus.PARTICIPATING;
     }
 
+    /**
+     * Removes the user from the session or from its waitlist. A freed seat goes to the oldest
+     * waitlist entry, if any.
+     */
+    @Transactional
     public void noLongerParticipate(Long id, Long userId) {
-        Session session = this.sessionRepository.findById(id).orElse(null);
-        if (session == null) {
-            throw new NotFoundException();
+        int deleted = this.sessionRepository.removeParticipant(id, userId);
+
+        if (deleted == 0) {
+            // Lock the row so that a concurrent promotion of this user cannot slip in between
+            if (this.sessionRepository.lockById(id) == null) {
+                throw new NotFoundException();
+            }
+            deleted = this.sessionRepository.removeParticipant(id, userId);
+            if (deleted == 0) {
+                if (this.waitlistRepository.removeFromWaitlist(id, userId) > 0) {
+                    return;
+                }
+                throw new BadRequestException();
+            }
+        }
+
+        // Releasing the seat locks the session row, so promotions of the same session are serialized
+        this.sessionRepository.releaseSeat(id);
+        promoteWaitlisted(id);
+        this.eventPublisher.publishEvent(new SessionChangedEvent(id, true));
+        this.eventPublisher.publishEvent(new ParticipationChangedEvent(userId));
+    }
+
+    /**
+     * Seats the oldest waitlist entries of the session for as long as it has free seats, and
+     * returns how many were seated. The caller must already hold the session row lock, so that
+     * promotions of the same session are serialized.
+     */
+    @Transactional
+    public int promoteWaitlisted(Long id) {
+        int promoted = 0;
+        Optional<WaitlistEntry> next;
+        while ((next = this.waitlistRepository.findFirstBySessionIdOrderByIdAsc(id)).isPresent()
+                && this.sessionRepository.reserveSeat(id) == 1) {
+            Long userId = next.get().getUserId();
+            this.waitlistRepository.removeFromWaitlist(id, userId);
+            this.sessionRepository.addParticipant(id, userId);
+            this.eventPublisher.publishEvent(new ParticipationChangedEvent(userId));
+            promoted++;
         }
+        return promoted;
+    }
 
-        boolean alreadyParticipate = session.getUsers().stream().anyMatch(o -> o.getId().equals(userId));
-        if(!alreadyParticipate) {
+    private void joinWaitlist(Long id, Long userId) {
+        int inserted;
+        try {
+            inserted = this.waitlistRepository.addToWaitlist(id, userId);
+        } catch (DataIntegrityViolationException e) {
             throw new BadRequestException();
         }
 
-        session.setUsers(session.getUsers().stream().filter(user -> !user.getId().equals(userId)).collect(Collectors.toList()));
+        if (inserted == 0) {
+            if (!this.userRepository.existsById(userId)) {
+                throw new NotFoundException();
+            }
+            throw new BadRequestException();
+        }
+    }
 
-        this.sessionRepository.save(session);
+    private Session saveWithParticipantCount(Session session) {
+        Session saved = this.sessionRepository.save(session);
+        try {
+            this.sessionRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            // The teacher is only referenced by id, so an unknown one surfaces here
+            throw new BadRequestException();
+        }
+        this.sessionRepository.syncParticipantCount(saved.getId());
+        saved.setParticipantCount(saved.getUsers() != null ? saved.getUsers().size() : 0);
+        return saved;
+    }
+
+    /** Loads the sessions with the given ids, in the order of {@code ids}. */
+    private List<Session> findAllInOrder(List<Long> ids) {
+        Map<Long, Integer> positions = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            positions.put(ids.get(i), i);
+        }
+        List<Session> sessions = this.sessionRepository.findAllWithUsersByIdIn(ids);
+        sessions.sort(Comparator.comparing(session -> positions.get(session.getId())));
+        return sessions;
+    }
+
+    private static String encodeCursor(Session session) {
+        return encodeCursor(session.getDate().getTime(), session.getId());
+    }
+
+    static String encodeCursor(long date, long id) {
+        String position = date + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    static long[] decodeCursor(String cursor) {
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII).split(":");
+            if (position.length != 2) {
+                throw new BadRequestException();
+            }
+            return new long[] { Long.parseLong(position[0]), Long.parseLong(position[1]) };
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException();
+        }
     }
 }
@@ -0,0 +1,11 @@
+package com.openclassrooms.starterjwt.services;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/** Published when a teacher is created, updated or deleted through JPA. */
+@Getter
+@AllArgsConstructor
+public class TeacherChangedEvent {
+    private final Long teacherId;
+}
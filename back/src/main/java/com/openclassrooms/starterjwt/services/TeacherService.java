@@ -2,23 +2,114 @@ package com.openclassrooms.starterjwt.services;
 
 import com.openclassrooms.starterjwt.models.Teacher;
 import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import javax.annotation.PostConstruct;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+/**
+ * Serves teachers from an immutable in-memory snapshot. The snapshot is replaced after every
+ * teacher write made through JPA on this node, and on a fixed interval when the table
+ * fingerprint (row count and latest update) shows a change made elsewhere. The version is that
+ * fingerprint, so every node reports the same version for the same data. The returned teachers
+ * are shared between callers and must not be modified.
+ */
 @Service
 public class TeacherService {
+    private static final Logger logger = LoggerFactory.getLogger(TeacherService.class);
+
     private final TeacherRepository teacherRepository;
 
+    private volatile Snapshot snapshot;
+
     public TeacherService(TeacherRepository teacherRepository) {
         this.teacherRepository = teacherRepository;
     }
 
     public List<Teacher> findAll() {
-        return this.teacherRepository.findAll();
+        return snapshot().teachers;
     }
 
     public Teacher findById(Long id) {
-        return this.teacherRepository.findById(id).orElse(null);
+        return snapshot().byId.get(id);
+    }
+
+    /** Version of the data currently served, suitable as an ETag. */
+    public String getVersion() {
+        return snapshot().version;
+    }
+
+    /**
+     * Returns an uninitialized reference to the teacher, for associations that only need its id.
+     * An unknown id is only detected when the referencing row is flushed.
+     */
+    public Teacher getReference(Long id) {
+        return this.teacherRepository.getById(id);
+    }
+
+    @PostConstruct
+    @Scheduled(initialDelayString = "${oc.app.teacherRefreshMs:60000}", fixedDelayString = "${oc.app.teacherRefreshMs:60000}")
+    public void refresh() {
+        String version = fingerprint();
+        Snapshot current = this.snapshot;
+        if (current == null || !current.version.equals(version)) {
+            load(version);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTeacherChanged(TeacherChangedEvent event) {
+        load(fingerprint());
+    }
+
+    private Snapshot snapshot() {
+        Snapshot current = this.snapshot;
+        if (current == null) {
+            refresh();
+            current = this.snapshot;
+        }
+        return current;
+    }
+
+    // The fingerprint is read before the rows, so a write landing in between leaves an older
+    // version on newer data and the next refresh simply loads again
+    private synchronized void load(String version) {
+        List<Teacher> teachers = this.teacherRepository.findAll();
+        Map<Long, Teacher> byId = new HashMap<>();
+        for (Teacher teacher : teachers) {
+            byId.put(teacher.getId(), teacher);
+        }
+        this.snapshot = new Snapshot(version, Collections.unmodifiableList(teachers), Collections.unmodifiableMap(byId));
+        logger.debug("Loaded {} teachers at version {}", teachers.size(), version);
+    }
+
+    private String fingerprint() {
+        List<Object[]> rows = this.teacherRepository.findFingerprint();
+        Object[] row = rows.isEmpty() ? new Object[] { 0L, null } : rows.get(0);
+        long lastUpdate = row[1] instanceof LocalDateTime ? Timestamp.valueOf((LocalDateTime) row[1]).getTime() : 0;
+        return row[0] + "-" + lastUpdate;
+    }
+
+    private static final class Snapshot {
+        private final String version;
+
+        private final List<Teacher> teachers;
+
+        private final Map<Long, Teacher> byId;
+
+        private Snapshot(String version, List<Teacher> teachers, Map<Long, Teacher> byId) {
+            this.version = version;
+            this.teachers = teachers;
+            this.byId = byId;
+        }
     }
 }
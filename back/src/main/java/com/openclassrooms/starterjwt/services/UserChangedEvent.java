@@ -0,0 +1,11 @@
+package com.openclassrooms.starterjwt.services;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/** Published when a user is created, updated or deleted through JPA. */
+@Getter
+@AllArgsConstructor
+public class UserChangedEvent {
+    private final Long userId;
+}
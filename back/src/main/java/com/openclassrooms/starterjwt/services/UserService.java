@@ -2,21 +2,41 @@ package com.openclassrooms.starterjwt.services;
 
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.security.jwt.TokenRevocationStore;
+import com.openclassrooms.starterjwt.security.services.UserDetailsCache;
 import org.springframework.stereotype.Service;
 
 @Service
 public class UserService {
     private final UserRepository userRepository;
 
-    public UserService(UserRepository userRepository) {
+    private final UserDetailsCache userDetailsCache;
+
+    private final TokenRevocationStore tokenRevocationStore;
+
+    public UserService(UserRepository userRepository,
+            UserDetailsCache userDetailsCache,
+            TokenRevocationStore tokenRevocationStore) {
         this.userRepository = userRepository;
+        this.userDetailsCache = userDetailsCache;
+        this.tokenRevocationStore = tokenRevocationStore;
     }
 
-    public void delete(Long id) {
-        this.userRepository.deleteById(id);
+    public void delete(User user) {
+        this.userRepository.deleteById(user.getId());
+        this.userDetailsCache.evict(user.getEmail());
+        this.tokenRevocationStore.revokeUser(user.getId());
     }
 
     public User findById(Long id) {
         return this.userRepository.findById(id).orElse(null);
     }
+
+    /**
+     * Returns an uninitialized reference to the user, for associations that only need its id.
+     * An unknown id is only detected when the referencing row is flushed.
+     */
+    public User getReference(Long id) {
+        return this.userRepository.getById(id);
+    }
 }
@@ -0,0 +1,172 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.openclassrooms.starterjwt.dto.SessionSummary;
+import com.openclassrooms.starterjwt.dto.SessionSummaryPage;
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.exception.NotFoundException;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The sessions a user attends, upcoming or past, one page at a time. The (date, id) list of a
+ * user's sessions is read from PARTICIPATE by user and cached; a page is cut from it and only the
+ * summaries of that page are loaded, without the other participants.
+ *
+ * <p>A user's list is dropped after each committed change to their participations, whether it
+ * comes from a single request, a bulk enrollment or a deleted session, and after each edit of a
+ * session they attend. A cache size of 0 disables caching.
+ */
+@Service
+public class UserSessionService {
+    private final SessionRepository sessionRepository;
+
+    private final UserRepository userRepository;
+
+    private final LoadingCache<Long, Attended> cache;
+
+    public UserSessionService(SessionRepository sessionRepository,
+                              UserRepository userRepository,
+                              MeterRegistry meterRegistry,
+                              @Value("${oc.app.userSessionsCacheMaxSize:10000}") long maxSize,
+                              @Value("${oc.app.userSessionsCacheTtlMs:300000}") long ttlMs) {
+        this.sessionRepository = sessionRepository;
+        this.userRepository = userRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build(this::load);
+
+        CaffeineCacheMetrics.monitor(meterRegistry, this.cache, "userSessions");
+    }
+
+    /**
+     * Returns the page of {@code userId}'s sessions that follows {@code cursor}. Upcoming sessions
+     * come soonest first, past sessions latest first.
+     */
+    public SessionSummaryPage findPage(Long userId, boolean upcoming, String cursor, int size) {
+        if (size < 1) {
+            throw new BadRequestException();
+        }
+        size = Math.min(size, SessionService.MAX_PAGE_SIZE);
+
+        Attended attended = this.cache.get(userId);
+        if (attended.ids.length == 0 && !this.userRepository.existsById(userId)) {
+            this.cache.invalidate(userId);
+            throw new NotFoundException();
+        }
+
+        long now = System.currentTimeMillis();
+        long[] position = cursor != null ? SessionService.decodeCursor(cursor) : null;
+        List<Integer> slice = new ArrayList<>(size);
+        boolean hasNext;
+        if (upcoming) {
+            int start = position != null
+                    ? attended.lowerBound(position[0], position[1] + 1)
+                    : attended.lowerBound(now, Long.MIN_VALUE);
+            int end = Math.min(start + size, attended.ids.length);
+            for (int i = start; i < end; i++) {
+                slice.add(i);
+            }
+            hasNext = end < attended.ids.length;
+        } else {
+            int end = position != null
+                    ? attended.lowerBound(position[0], position[1])
+                    : attended.lowerBound(now, Long.MIN_VALUE);
+            int start = Math.max(end - size, 0);
+            for (int i = end - 1; i >= start; i--) {
+                slice.add(i);
+            }
+            hasNext = start > 0;
+        }
+        if (slice.isEmpty()) {
+            return new SessionSummaryPage(List.of(), null);
+        }
+
+        Map<Long, Integer> positions = new HashMap<>();
+        for (int i = 0; i < slice.size(); i++) {
+            positions.put(attended.ids[slice.get(i)], i);
+        }
+        List<SessionSummary> summaries = new ArrayList<>(this.sessionRepository.findSummariesByIdIn(positions.keySet()));
+        summaries.sort(Comparator.comparing(summary -> positions.get(summary.getId())));
+
+        int last = slice.get(slice.size() - 1);
+        return new SessionSummaryPage(summaries,
+                hasNext ? SessionService.encodeCursor(attended.dates[last], attended.ids[last]) : null);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onParticipationChanged(ParticipationChangedEvent event) {
+        this.cache.invalidate(event.getUserId());
+    }
+
+    /**
+     * Drops the lists of the users attending an edited session, since its date orders their list.
+     * Participation changes, including those of deleted sessions, come with their own
+     * ParticipationChangedEvent.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSessionChanged(SessionChangedEvent event) {
+        if (event.isParticipantsOnly() || event.getSessionId() == null || this.cache.estimatedSize() == 0) {
+            return;
+        }
+        this.cache.invalidateAll(this.sessionRepository.findParticipantIds(event.getSessionId()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        this.cache.invalidate(event.getUserId());
+    }
+
+    private Attended load(Long userId) {
+        List<Object[]> rows = this.sessionRepository.findAttendedByUserId(userId);
+        Attended attended = new Attended(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            attended.ids[i] = ((Number) rows.get(i)[0]).longValue();
+            attended.dates[i] = ((Date) rows.get(i)[1]).getTime();
+        }
+        return attended;
+    }
+
+    /** A user's sessions in (date, id) order. */
+    private static final class Attended {
+        private final long[] dates;
+
+        private final long[] ids;
+
+        private Attended(int size) {
+            this.dates = new long[size];
+            this.ids = new long[size];
+        }
+
+        /** Index of the first session at or after ({@code date}, {@code id}). */
+        private int lowerBound(long date, long id) {
+            int low = 0;
+            int high = this.ids.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (this.dates[middle] < date || (this.dates[middle] == date && this.ids[middle] < id)) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+-- PARTICIPATE had no key: duplicate rows could pile up and every lookup scanned the table.
+-- The table is rebuilt with a (session_id, user_id) primary key, dropping duplicate and
+-- incomplete rows, plus a reverse index for the sessions of a user.
+CREATE TABLE `PARTICIPATE_KEYED` (
+  `session_id` INT NOT NULL,
+  `user_id` INT NOT NULL,
+  PRIMARY KEY (`session_id`, `user_id`)
+);
+
+INSERT INTO `PARTICIPATE_KEYED` (`session_id`, `user_id`)
+SELECT DISTINCT `session_id`, `user_id` FROM `PARTICIPATE`
+WHERE `session_id` IS NOT NULL AND `user_id` IS NOT NULL;
+
+DROP TABLE `PARTICIPATE`;
+
+ALTER TABLE `PARTICIPATE_KEYED` RENAME TO `PARTICIPATE`;
+
+CREATE INDEX `idx_participate_user_session` ON `PARTICIPATE` (`user_id`, `session_id`);
+
+ALTER TABLE `PARTICIPATE` ADD CONSTRAINT `fk_participate_session` FOREIGN KEY (`session_id`) REFERENCES `SESSIONS` (`id`);
+ALTER TABLE `PARTICIPATE` ADD CONSTRAINT `fk_participate_user` FOREIGN KEY (`user_id`) REFERENCES `USERS` (`id`);
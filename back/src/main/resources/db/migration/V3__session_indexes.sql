@@ -0,0 +1,3 @@
+-- Keyset pages of GET /api/session walk (date, id); the teacher filter walks (teacher_id, date, id).
+CREATE INDEX `idx_sessions_date_id` ON `SESSIONS` (`date`, `id`);
+CREATE INDEX `idx_sessions_teacher_date_id` ON `SESSIONS` (`teacher_id`, `date`, `id`);
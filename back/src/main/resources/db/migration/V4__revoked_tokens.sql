@@ -0,0 +1,7 @@
+CREATE TABLE `REVOKED_TOKENS` (
+  `id` INT PRIMARY KEY AUTO_INCREMENT,
+  `token_id` VARCHAR(64) NOT NULL UNIQUE,
+  `expires_at` DATETIME NOT NULL
+);
+
+CREATE INDEX `idx_revoked_tokens_expires_at` ON `REVOKED_TOKENS` (`expires_at`);
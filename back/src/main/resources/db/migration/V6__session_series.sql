@@ -0,0 +1,29 @@
+CREATE TABLE `SESSION_SERIES` (
+  `id` INT PRIMARY KEY AUTO_INCREMENT,
+  `name` VARCHAR(50),
+  `description` VARCHAR(2500),
+  `teacher_id` int,
+  `capacity` INT,
+  `frequency` VARCHAR(10) NOT NULL,
+  `repeat_interval` INT NOT NULL DEFAULT 1,
+  `start_date` TIMESTAMP NULL,
+  `end_date` TIMESTAMP NULL,
+  `created_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  `updated_at` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
+
+ALTER TABLE `SESSION_SERIES` ADD FOREIGN KEY (`teacher_id`) REFERENCES `TEACHERS` (`id`);
+
+ALTER TABLE `SESSIONS` ADD COLUMN `series_id` INT;
+ALTER TABLE `SESSIONS` ADD FOREIGN KEY (`series_id`) REFERENCES `SESSION_SERIES` (`id`);
+CREATE INDEX `idx_sessions_series_date` ON `SESSIONS` (`series_id`, `date`);
+
+-- Session ids are handed out by Hibernate in blocks of 50 from this table so that inserts can
+-- be batched. The seed must end a block above the highest existing id.
+CREATE TABLE `ID_GENERATORS` (
+  `name` VARCHAR(64) PRIMARY KEY,
+  `next_val` BIGINT NOT NULL
+);
+
+INSERT INTO ID_GENERATORS (name, next_val)
+SELECT 'SESSIONS', COALESCE(MAX(id), 0) + 50 FROM SESSIONS;
@@ -0,0 +1,2 @@
+-- Optimistic locking version of a session, bumped by edits only. PUT compares it with If-Match.
+ALTER TABLE `SESSIONS` ADD COLUMN `version` BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,3 @@
+-- When the entry was revoked. A user-wide entry only rejects the tokens issued up to then, so the
+-- user can sign in again afterwards. Existing entries keep rejecting everything issued so far.
+ALTER TABLE `REVOKED_TOKENS` ADD COLUMN `revoked_at` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP;
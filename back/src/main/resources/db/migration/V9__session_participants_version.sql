@@ -0,0 +1,3 @@
+-- Bumped whenever someone joins or leaves a session. Together with `version` it identifies what
+-- GET /api/session/{id} returns, without making edits conflict with participation changes.
+ALTER TABLE `SESSIONS` ADD COLUMN `participants_version` BIGINT NOT NULL DEFAULT 0;
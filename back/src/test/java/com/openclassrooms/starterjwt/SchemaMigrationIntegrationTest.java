@@ -0,0 +1,118 @@
+package com.openclassrooms.starterjwt;
+
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.services.SessionService;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:migrated;MODE=MySQL;DATABASE_TO_LOWER=FALSE;CASE_INSENSITIVE_IDENTIFIERS=TRUE",
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate"
+})
+@ActiveProfiles("test")
+class SchemaMigrationIntegrationTest {
+
+    private static final String LEGACY_URL =
+            "jdbc:h2:mem:legacy;MODE=MySQL;DATABASE_TO_LOWER=FALSE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private SessionService sessionService;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void startup_migratesEmptyDatabaseToLatestSchema() throws Exception {
+        assertThat(flyway.info().pending()).isEmpty();
+        assertThat(flyway.info().current().getVersion().getVersion()).isEqualTo("9");
+
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            assertThat(primaryKey(metaData, "PARTICIPATE")).containsExactly("session_id", "user_id");
+            assertThat(indexes(metaData, "PARTICIPATE")).contains("idx_participate_user_session");
+            assertThat(indexes(metaData, "SESSIONS"))
+                    .contains("idx_sessions_date_id", "idx_sessions_teacher_date_id", "idx_sessions_series_date");
+        }
+
+        // The entities work against the migrated schema
+        User user = userRepository.findByEmail("yoga@studio.com").orElseThrow();
+        Session session = sessionRepository.save(Session.builder()
+                .name("Migrated").description("Runs on the migrated schema").date(new Date()).users(List.of()).build());
+        sessionService.participate(session.getId(), user.getId());
+
+        assertThrows(BadRequestException.class, () -> sessionService.participate(session.getId(), user.getId()));
+        assertThat(sessionService.getById(session.getId()).getUsers()).extracting(User::getId).containsExactly(user.getId());
+    }
+
+    @Test
+    void migrate_upgradesBaselinedDatabaseAndDropsDuplicateParticipations() {
+        DataSource legacy = new DriverManagerDataSource(LEGACY_URL, "sa", "");
+        Flyway.configure().dataSource(legacy).target("1").load().migrate();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(legacy);
+        // A database created by hand from the original script has no migration history
+        jdbcTemplate.execute("DROP TABLE `flyway_schema_history`");
+        jdbcTemplate.update("INSERT INTO SESSIONS (id, name, description, date) VALUES (70, 'Legacy', 'Old', CURRENT_TIMESTAMP)");
+        jdbcTemplate.update("INSERT INTO PARTICIPATE (session_id, user_id) VALUES (70, 1), (70, 1), (70, NULL)");
+
+        Flyway.configure().dataSource(legacy).baselineOnMigrate(true).baselineVersion("1").load().migrate();
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM PARTICIPATE", Integer.class)).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT participant_count FROM SESSIONS WHERE id = 70", Integer.class)).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT next_val FROM ID_GENERATORS WHERE name = 'SESSIONS'", Long.class))
+                .isEqualTo(120L);
+        assertThrows(Exception.class,
+                () -> jdbcTemplate.update("INSERT INTO PARTICIPATE (session_id, user_id) VALUES (70, 1)"));
+    }
+
+    // H2 reports identifiers in upper case, MySQL as written
+    private static List<String> primaryKey(DatabaseMetaData metaData, String table) throws Exception {
+        List<String> columns = new ArrayList<>();
+        try (ResultSet rs = metaData.getPrimaryKeys(null, null, table)) {
+            while (rs.next()) {
+                columns.add(rs.getShort("KEY_SEQ") - 1, rs.getString("COLUMN_NAME").toLowerCase(Locale.ROOT));
+            }
+        }
+        return columns;
+    }
+
+    private static List<String> indexes(DatabaseMetaData metaData, String table) throws Exception {
+        List<String> names = new ArrayList<>();
+        try (ResultSet rs = metaData.getIndexInfo(null, null, table, false, false)) {
+            while (rs.next()) {
+                names.add(rs.getString("INDEX_NAME").toLowerCase(Locale.ROOT));
+            }
+        }
+        return names;
+    }
+}
@@ -0,0 +1,119 @@
+package com.openclassrooms.starterjwt.benchmark;
+
+import com.openclassrooms.starterjwt.security.jwt.JwtCodec;
+import com.openclassrooms.starterjwt.security.jwt.VerifiedToken;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.impl.TextCodec;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Issue and verify throughput of {@link JwtCodec} against the per-call jjwt builder and parser
+ * previously used by JwtUtils, and against jjwt with a decoded key and a shared parser. Run with
+ * allocation profiling:
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *     com.openclassrooms.starterjwt.benchmark.JwtCodecBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtCodecBenchmark {
+
+    private static final String SECRET = "openclassrooms";
+    private static final int EXPIRATION_MS = 86400000;
+
+    private JwtCodec jwtCodec;
+    private SecretKeySpec key;
+    private JwtParser parser;
+    private UserDetailsImpl principal;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtCodec = new JwtCodec(SECRET, EXPIRATION_MS);
+        key = new SecretKeySpec(TextCodec.BASE64.decode(SECRET), SignatureAlgorithm.HS512.getJcaName());
+        parser = Jwts.parser().setSigningKey(key);
+        principal = UserDetailsImpl.builder()
+                .id(1L)
+                .username("yoga@studio.com")
+                .firstName("Admin")
+                .lastName("Admin")
+                .admin(true)
+                .build();
+        token = jwtCodec.issue(principal);
+    }
+
+    @Benchmark
+    public String issueLegacy() {
+        return Jwts.builder()
+                .setSubject(principal.getUsername())
+                .claim("id", principal.getId())
+                .claim("firstName", principal.getFirstName())
+                .claim("lastName", principal.getLastName())
+                .claim("admin", principal.getAdmin())
+                .setIssuedAt(new Date())
+                .setExpiration(new Date((new Date()).getTime() + EXPIRATION_MS))
+                .signWith(SignatureAlgorithm.HS512, SECRET)
+                .compact();
+    }
+
+    @Benchmark
+    public String issueReused() {
+        long now = System.currentTimeMillis();
+        return Jwts.builder()
+                .setSubject(principal.getUsername())
+                .claim("id", principal.getId())
+                .claim("firstName", principal.getFirstName())
+                .claim("lastName", principal.getLastName())
+                .claim("admin", principal.getAdmin())
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + EXPIRATION_MS))
+                .signWith(SignatureAlgorithm.HS512, key)
+                .compact();
+    }
+
+    @Benchmark
+    public String issueCodec() {
+        return jwtCodec.issue(principal);
+    }
+
+    @Benchmark
+    public Claims verifyLegacy() {
+        return Jwts.parser().setSigningKey(SECRET).parseClaimsJws(token).getBody();
+    }
+
+    @Benchmark
+    public Claims verifyReused() {
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    @Benchmark
+    public VerifiedToken verifyCodec() {
+        return jwtCodec.verify(token);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(JwtCodecBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,119 @@
+package com.openclassrooms.starterjwt.benchmark;
+
+import com.openclassrooms.starterjwt.SpringBootSecurityJwtApplication;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.services.SessionService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sustained join/leave throughput on a single hot session with a capacity smaller than the number
+ * of threads, so seats, the waitlist and promotions are all exercised. Runs against an in-memory
+ * H2 database by default; pass -Dspring.datasource.url=... (and user, password, driver, dialect)
+ * to measure against MySQL. Run with:
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *     com.openclassrooms.starterjwt.benchmark.SessionParticipationBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(16)
+@Fork(1)
+public class SessionParticipationBenchmark {
+
+    private static final int USERS = 64;
+
+    @Param({"8"})
+    public int capacity;
+
+    private ConfigurableApplicationContext context;
+    private SessionService sessionService;
+    private Long sessionId;
+    private Long[] userIds;
+    private final AtomicInteger nextUser = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(SpringBootSecurityJwtApplication.class)
+                .profiles("test")
+                .run("--spring.datasource.url=" + System.getProperty("spring.datasource.url",
+                                "jdbc:h2:mem:benchmark;MODE=MySQL;DATABASE_TO_LOWER=FALSE"),
+                        "--spring.datasource.driver-class-name=" + System.getProperty("spring.datasource.driver-class-name",
+                                "org.h2.Driver"),
+                        "--spring.datasource.username=" + System.getProperty("spring.datasource.username", "sa"),
+                        "--spring.datasource.password=" + System.getProperty("spring.datasource.password", ""),
+                        "--spring.jpa.properties.hibernate.dialect=" + System.getProperty("spring.jpa.properties.hibernate.dialect",
+                                "org.hibernate.dialect.H2Dialect"),
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--server.port=0");
+        sessionService = context.getBean(SessionService.class);
+
+        Session session = context.getBean(SessionRepository.class).save(Session.builder()
+                .name("Hot session")
+                .description("Benchmark")
+                .date(new Date())
+                .capacity(capacity)
+                .users(List.of())
+                .build());
+        sessionId = session.getId();
+
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        userIds = new Long[USERS];
+        for (int i = 0; i < USERS; i++) {
+            userIds[i] = userRepository.save(User.builder()
+                    .email("benchmark" + i + "@example.com")
+                    .firstName("Bench")
+                    .lastName("User")
+                    .password("password")
+                    .admin(false)
+                    .build()).getId();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadUser {
+        Long userId;
+
+        @Setup(Level.Trial)
+        public void setUp(SessionParticipationBenchmark benchmark) {
+            userId = benchmark.userIds[benchmark.nextUser.getAndIncrement() % USERS];
+        }
+    }
+
+    @Benchmark
+    public void joinAndLeave(ThreadUser user) {
+        sessionService.participate(sessionId, user.userId);
+        sessionService.noLongerParticipate(sessionId, user.userId);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(SessionParticipationBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,81 @@
+package com.openclassrooms.starterjwt.benchmark;
+
+import com.openclassrooms.starterjwt.services.SessionSearchIndex;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Search latency of {@link SessionSearchIndex} over synthetic sessions whose words follow a skewed
+ * distribution, so common words have long postings. Sampled per call to read the p99. Run with:
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *     com.openclassrooms.starterjwt.benchmark.SessionSearchBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SessionSearchBenchmark {
+
+    private static final int VOCABULARY = 5_000;
+
+    @Param({"100000"})
+    public int sessions;
+
+    private SessionSearchIndex searchIndex;
+    private String[] words;
+    private String[] queries;
+    private int nextQuery;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        words = new String[VOCABULARY];
+        for (int i = 0; i < VOCABULARY; i++) {
+            words[i] = "mot" + Integer.toString(i, 36) + "é";
+        }
+
+        searchIndex = new SessionSearchIndex(null);
+        for (long id = 1; id <= sessions; id++) {
+            searchIndex.index(id, text(random, 3), text(random, 30));
+        }
+
+        queries = new String[1024];
+        for (int i = 0; i < queries.length; i++) {
+            queries[i] = text(random, 1 + random.nextInt(3));
+        }
+    }
+
+    @Benchmark
+    public List<Long> search() {
+        return searchIndex.search(queries[nextQuery++ & (queries.length - 1)], 20);
+    }
+
+    private String text(Random random, int length) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            // Squaring skews picks towards the first words, like word frequencies in real text
+            double skewed = random.nextDouble() * random.nextDouble();
+            text.append(words[(int) (skewed * VOCABULARY)]).append(' ');
+        }
+        return text.toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(SessionSearchBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
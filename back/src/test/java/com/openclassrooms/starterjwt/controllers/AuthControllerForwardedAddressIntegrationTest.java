@@ -0,0 +1,54 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs on a real Tomcat, since the proxy's X-Forwarded-For is applied by the container and
+ * MockMvc never sees it.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "oc.app.loginThrottleAddressCapacity=2",
+        "oc.app.loginThrottleAddressPerMinute=1"
+})
+@ActiveProfiles("test")
+class AuthControllerForwardedAddressIntegrationTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void login_throttlesEachForwardedClientSeparately() throws Exception {
+        assertThat(login("a@example.com", "203.0.113.1")).isEqualTo(401);
+        assertThat(login("b@example.com", "203.0.113.1")).isEqualTo(401);
+        assertThat(login("c@example.com", "203.0.113.1")).isEqualTo(429);
+
+        // Another client behind the same proxy keeps its own allowance
+        assertThat(login("d@example.com", "203.0.113.2")).isEqualTo(401);
+    }
+
+    private int login(String email, String forwardedFor) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + this.port + "/api/auth/login").openConnection();
+        connection.setRequestMethod("POST");
+        connection.setRequestProperty("Content-Type", "application/json");
+        connection.setRequestProperty("X-Forwarded-For", forwardedFor);
+        connection.setDoOutput(true);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(("{\"email\":\"" + email + "\",\"password\":\"wrong-password\"}").getBytes(StandardCharsets.UTF_8));
+        }
+        try {
+            return connection.getResponseCode();
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
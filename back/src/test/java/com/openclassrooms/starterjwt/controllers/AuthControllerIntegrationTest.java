@@ -11,11 +11,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -108,6 +111,32 @@ public class AuthControllerIntegrationTest {
                 .andExpect(jsonPath("$.admin").value(true));
     }
 
+    @Test
+    void authenticateUser_upgradesStoredHash_whenCostIsLowerThanConfigured() throws Exception {
+        User user = User.builder()
+                .email("legacy@example.com")
+                .firstName("Legacy")
+                .lastName("User")
+                .password(new BCryptPasswordEncoder(4).encode("password"))
+                .admin(false)
+                .build();
+        userRepository.save(user);
+
+        LoginRequest login = new LoginRequest();
+        login.setEmail("legacy@example.com");
+        login.setPassword("password");
+
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(login)))
+                .andExpect(status().isOk());
+
+        String upgraded = userRepository.findByEmail("legacy@example.com").orElseThrow().getPassword();
+        assertThat(upgraded).doesNotStartWith("$2a$04$");
+        assertThat(passwordEncoder.matches("password", upgraded)).isTrue();
+        assertThat(passwordEncoder.upgradeEncoding(upgraded)).isFalse();
+    }
+
     @Test
     void authenticateUser_returns401_whenInvalidCredentials() throws Exception {
         LoginRequest login = new LoginRequest();
@@ -119,4 +148,38 @@ public class AuthControllerIntegrationTest {
                         .content(objectMapper.writeValueAsString(login)))
                 .andExpect(status().isUnauthorized());
     }
+
+    @Test
+    void logoutUser_revokesToken() throws Exception {
+        User user = userRepository.save(User.builder()
+                .email("logout@example.com")
+                .firstName("Logout")
+                .lastName("User")
+                .password(passwordEncoder.encode("password"))
+                .admin(false)
+                .build());
+
+        LoginRequest login = new LoginRequest();
+        login.setEmail("logout@example.com");
+        login.setPassword("password");
+
+        String body = mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(login)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String token = objectMapper.readTree(body).get("token").asText();
+
+        mockMvc.perform(get("/api/user/" + user.getId())
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/auth/logout")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/user/" + user.getId())
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isUnauthorized());
+    }
 }
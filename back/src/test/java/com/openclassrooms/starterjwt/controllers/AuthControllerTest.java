@@ -1,10 +1,16 @@
 package com.openclassrooms.starterjwt.controllers;
 
+import com.openclassrooms.starterjwt.exception.ServiceUnavailableException;
+import com.openclassrooms.starterjwt.exception.TooManyRequestsException;
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.payload.request.LoginRequest;
 import com.openclassrooms.starterjwt.payload.response.JwtResponse;
 import com.openclassrooms.starterjwt.repository.UserRepository;
 import com.openclassrooms.starterjwt.security.jwt.JwtUtils;
+import com.openclassrooms.starterjwt.security.jwt.TokenRevocationStore;
+import com.openclassrooms.starterjwt.security.jwt.VerifiedToken;
+import com.openclassrooms.starterjwt.security.services.LoginThrottle;
+import com.openclassrooms.starterjwt.security.services.UserDetailsCache;
 import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -12,6 +18,7 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -23,6 +30,7 @@ import com.openclassrooms.starterjwt.payload.response.MessageResponse;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -42,6 +50,15 @@ class AuthControllerTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private UserDetailsCache userDetailsCache;
+
+    @Mock
+    private LoginThrottle loginThrottle;
+
+    @Mock
+    private TokenRevocationStore tokenRevocationStore;
+
     @InjectMocks
     private AuthController authController;
 
@@ -75,7 +92,7 @@ class AuthControllerTest {
         when(userRepository.findByEmail(email)).thenReturn(Optional.of(user));
 
         // Act
-        ResponseEntity<?> response = authController.authenticateUser(loginRequest);
+        ResponseEntity<?> response = authController.authenticateUser(loginRequest, new MockHttpServletRequest());
 
         // Assert
         assertThat(response.getBody()).isInstanceOf(JwtResponse.class);
@@ -117,7 +134,7 @@ class AuthControllerTest {
         when(userRepository.findByEmail(email)).thenReturn(Optional.empty());
 
         // Act
-        ResponseEntity<?> response = authController.authenticateUser(loginRequest);
+        ResponseEntity<?> response = authController.authenticateUser(loginRequest, new MockHttpServletRequest());
 
         // Assert
         assertThat(response.getBody()).isInstanceOf(JwtResponse.class);
@@ -159,6 +176,7 @@ class AuthControllerTest {
         MessageResponse messageResponse = (MessageResponse) response.getBody();
         assertThat(messageResponse.getMessage()).isEqualTo("User registered successfully!");
         assertThat(response.getStatusCodeValue()).isEqualTo(200); // Ensure the status code is 200 OK
+        verify(userDetailsCache).evict(email);
     }
 
     @Test
@@ -187,4 +205,52 @@ class AuthControllerTest {
         assertThat(response.getStatusCodeValue()).isEqualTo(400); // Ensure the status code is 400 Bad Request
     }
 
+    @Test
+    void handleServiceUnavailable_returns503WithRetryAfter() {
+        ResponseEntity<?> response = authController.handleServiceUnavailable(new ServiceUnavailableException(3));
+
+        assertThat(response.getStatusCodeValue()).isEqualTo(503);
+        assertThat(response.getHeaders().getFirst("Retry-After")).isEqualTo("3");
+        assertThat(response.getBody()).isInstanceOf(MessageResponse.class);
+    }
+
+    @Test
+    void authenticateUser_doesNotAuthenticate_whenThrottled() {
+        LoginRequest loginRequest = new LoginRequest();
+        loginRequest.setEmail("user@example.com");
+        loginRequest.setPassword("password");
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr("10.0.0.1");
+
+        doThrow(new TooManyRequestsException(5)).when(loginThrottle).acquire("user@example.com", "10.0.0.1");
+
+        assertThrows(TooManyRequestsException.class,
+                () -> authController.authenticateUser(loginRequest, request));
+        verifyNoInteractions(authenticationManager);
+
+        ResponseEntity<?> response = authController.handleTooManyRequests(new TooManyRequestsException(5));
+        assertThat(response.getStatusCodeValue()).isEqualTo(429);
+        assertThat(response.getHeaders().getFirst("Retry-After")).isEqualTo("5");
+    }
+
+    @Test
+    void logoutUser_revokesPresentedToken() {
+        VerifiedToken token = VerifiedToken.builder().tokenId("jti").subject("user@example.com").build();
+        when(jwtUtils.parseJwtToken("mocked-jwt")).thenReturn(token);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer mocked-jwt");
+
+        ResponseEntity<?> response = authController.logoutUser(request);
+
+        assertThat(response.getStatusCodeValue()).isEqualTo(200);
+        verify(tokenRevocationStore).revoke(token);
+    }
+
+    @Test
+    void logoutUser_doesNothing_whenNoTokenIsPresented() {
+        ResponseEntity<?> response = authController.logoutUser(new MockHttpServletRequest());
+
+        assertThat(response.getStatusCodeValue()).isEqualTo(200);
+        verifyNoInteractions(jwtUtils, tokenRevocationStore);
+    }
 }
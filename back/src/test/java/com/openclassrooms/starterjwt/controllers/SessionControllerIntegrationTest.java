@@ -20,10 +20,17 @@ import org.springframework.http.MediaType;
 import org.springframework.security.core.Authentication;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.text.SimpleDateFormat;
 import java.time.LocalDateTime;
 import java.util.Date;
+import java.util.List;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -49,6 +56,8 @@ public class SessionControllerIntegrationTest {
     @Autowired
     private JwtUtils jwtUtils;
 
+    private static final long DAY = 86_400_000L;
+
     private String jwtToken;
     private Session testSession;
 
@@ -116,8 +125,18 @@ public class SessionControllerIntegrationTest {
     }
 
     @Test
-    void findAll_shouldReturnListOfSessions() throws Exception {
+    void findAll_shouldReturnListOfSessions_withoutPagingParameters() throws Exception {
+        mockMvc.perform(get("/api/session")
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isArray())
+                .andExpect(jsonPath("$[0].id").value(testSession.getId()));
+    }
+
+    @Test
+    void findAll_shouldReturnListOfSessions_whenUnpaged() throws Exception {
         mockMvc.perform(get("/api/session")
+                        .param("unpaged", "true")
                         .header("Authorization", "Bearer " + jwtToken))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$").isArray())
@@ -125,6 +144,175 @@ public class SessionControllerIntegrationTest {
                 .andExpect(jsonPath("$[0].name").value("Test Session"));
     }
 
+    @Test
+    void findAll_shouldWalkSessionsByCursor() throws Exception {
+        Session later = sessionRepository.save(Session.builder()
+                .name("Later Session")
+                .date(new Date(testSession.getDate().getTime() + 3_600_000))
+                .description("Later test session")
+                .teacher(testSession.getTeacher())
+                .build());
+
+        String body = mockMvc.perform(get("/api/session")
+                        .param("size", "1")
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sessions.length()").value(1))
+                .andExpect(jsonPath("$.sessions[0].id").value(testSession.getId()))
+                .andExpect(jsonPath("$.nextCursor").isString())
+                .andReturn().getResponse().getContentAsString();
+        String cursor = new ObjectMapper().readTree(body).get("nextCursor").asText();
+
+        mockMvc.perform(get("/api/session")
+                        .param("size", "1")
+                        .param("cursor", cursor)
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sessions[0].id").value(later.getId()))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+
+        mockMvc.perform(get("/api/session")
+                        .param("cursor", "invalid")
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void findAll_shouldFilterAndSortSessions() throws Exception {
+        long now = testSession.getDate().getTime();
+        Teacher other = teacherRepository.save(Teacher.builder().firstName("John").lastName("Smith").build());
+        Session full = sessionRepository.save(Session.builder()
+                .name("Full Session").date(new Date(now + 2 * DAY)).description("Full").teacher(testSession.getTeacher())
+                .capacity(1).build());
+        Session open = sessionRepository.save(Session.builder()
+                .name("Open Session").date(new Date(now + 3 * DAY)).description("Open").teacher(other).build());
+        sessionRepository.save(Session.builder()
+                .name("Next Month").date(new Date(now + 30 * DAY)).description("Later").teacher(testSession.getTeacher()).build());
+        User participant = userRepository.save(User.builder()
+                .email("filter@example.com").firstName("Filter").lastName("User").password("password").admin(false).build());
+        mockMvc.perform(post("/api/session/{id}/participate/{userId}", full.getId(), participant.getId())
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk());
+
+        String from = isoDate(now - 3_600_000);
+        String to = isoDate(now + 7 * DAY);
+
+        mockMvc.perform(get("/api/session").param("from", from).param("to", to)
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sessions[*].id").value(contains(
+                        testSession.getId().intValue(), full.getId().intValue(), open.getId().intValue())));
+
+        String body = mockMvc.perform(get("/api/session").param("from", from).param("to", to)
+                        .param("sort", "desc").param("size", "2")
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sessions[*].id").value(contains(open.getId().intValue(), full.getId().intValue())))
+                .andReturn().getResponse().getContentAsString();
+        mockMvc.perform(get("/api/session").param("from", from).param("to", to)
+                        .param("sort", "desc").param("size", "2")
+                        .param("cursor", new ObjectMapper().readTree(body).get("nextCursor").asText())
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sessions[*].id").value(contains(testSession.getId().intValue())));
+
+        mockMvc.perform(get("/api/session").param("from", from).param("to", to)
+                        .param("teacher_id", String.valueOf(testSession.getTeacher().getId()))
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sessions[*].id").value(contains(testSession.getId().intValue(), full.getId().intValue())));
+
+        mockMvc.perform(get("/api/session").param("from", from).param("to", to).param("available", "true")
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sessions[*].id").value(contains(testSession.getId().intValue(), open.getId().intValue())));
+
+        mockMvc.perform(get("/api/session").param("sort", "random")
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void search_shouldFindCommittedSessionsByFoldedWords() throws Exception {
+        Session other = sessionRepository.save(Session.builder()
+                .name("Pilates")
+                .date(new Date())
+                .description("Renforcement après l'été")
+                .teacher(testSession.getTeacher())
+                .build());
+
+        mockMvc.perform(get("/api/session/search").param("q", "ETE")
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id").value(contains(other.getId().intValue())));
+
+        other.setDescription("Renforcement");
+        sessionRepository.save(other);
+
+        mockMvc.perform(get("/api/session/search").param("q", "été")
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isEmpty());
+
+        mockMvc.perform(get("/api/session/search").param("q", "session pilates")
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id").value(containsInAnyOrder(testSession.getId().intValue(), other.getId().intValue())));
+    }
+
+    @Test
+    void events_shouldRequireAuthentication() throws Exception {
+        mockMvc.perform(get("/api/session/events").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void export_shouldStreamCsvToAdmins() throws Exception {
+        User admin = userRepository.save(User.builder()
+                .email("admin@example.com")
+                .firstName("Admin")
+                .lastName("User")
+                .password("password")
+                .admin(true)
+                .build());
+        Authentication authentication = mock(Authentication.class);
+        when(authentication.getPrincipal()).thenReturn(UserDetailsImpl.builder()
+                .id(admin.getId())
+                .username(admin.getEmail())
+                .firstName(admin.getFirstName())
+                .lastName(admin.getLastName())
+                .admin(true)
+                .password(admin.getPassword())
+                .build());
+        String adminToken = jwtUtils.generateJwtToken(authentication);
+
+        MvcResult result = mockMvc.perform(get("/api/session/export").param("format", "csv")
+                        .header("Authorization", "Bearer " + adminToken))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"attendance.csv\""))
+                .andExpect(content().string(containsString(
+                        testSession.getId() + ",Test Session,")));
+
+        mockMvc.perform(get("/api/session/export")
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void findAllSummaries_shouldReturnSummariesWithoutDescriptions() throws Exception {
+        mockMvc.perform(get("/api/session/summary")
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(testSession.getId()))
+                .andExpect(jsonPath("$[0].teacherFirstName").value("Jane"))
+                .andExpect(jsonPath("$[0].participantCount").value(0))
+                .andExpect(jsonPath("$[0].description").doesNotExist());
+    }
+
     @Test
     void create_shouldReturnCreatedSession() throws Exception {
         SessionDto newSession = new SessionDto();
@@ -142,6 +330,22 @@ public class SessionControllerIntegrationTest {
                 .andExpect(jsonPath("$.name").value("New Session"));
     }
 
+    @Test
+    void create_shouldReturnBadRequest_forUnknownParticipant() throws Exception {
+        SessionDto newSession = new SessionDto();
+        newSession.setName("New Session");
+        newSession.setDate(new Date());
+        newSession.setDescription("Description of new session");
+        newSession.setTeacher_id(testSession.getTeacher().getId());
+        newSession.setUsers(List.of(0L));
+
+        mockMvc.perform(post("/api/session")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(newSession)))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void create_shouldReturnBadRequest_forInvalidInput() throws Exception {
         SessionDto invalidSession = new SessionDto();
@@ -177,8 +381,118 @@ public class SessionControllerIntegrationTest {
         updateSession.setDescription("Updated description");
         updateSession.setTeacher_id(testSession.getTeacher().getId());
 
+        String etag = mockMvc.perform(get("/api/session/{id}", testSession.getId())
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andReturn().getResponse().getHeader("ETag");
+
+        String updatedEtag = mockMvc.perform(put("/api/session/{id}", testSession.getId())
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .header("If-Match", etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(updateSession)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Updated Name"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        assertThat(updatedEtag).isNotEqualTo(etag);
+        mockMvc.perform(get("/api/session/{id}", testSession.getId())
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .header("If-None-Match", updatedEtag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void update_shouldRequireIfMatch() throws Exception {
+        SessionDto updateSession = new SessionDto();
+        updateSession.setName("Updated Name");
+        updateSession.setDate(new Date());
+        updateSession.setDescription("Updated description");
+        updateSession.setTeacher_id(testSession.getTeacher().getId());
+
+        mockMvc.perform(put("/api/session/{id}", testSession.getId())
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(updateSession)))
+                .andExpect(status().isPreconditionRequired());
+    }
+
+    @Test
+    void update_shouldKeepIfMatchValid_whenOnlyParticipantsChangedMeanwhile() throws Exception {
+        String etag = mockMvc.perform(get("/api/session/{id}", testSession.getId())
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andReturn().getResponse().getHeader("ETag");
+        User participant = userRepository.save(User.builder()
+                .email("joiner@example.com")
+                .firstName("Joiner")
+                .lastName("User")
+                .password("password")
+                .admin(false)
+                .build());
+        mockMvc.perform(post("/api/session/{id}/participate/{userId}", testSession.getId(), participant.getId())
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk());
+
+        // The representation changed, so a cached copy is no longer valid
+        mockMvc.perform(get("/api/session/{id}", testSession.getId())
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users[0]").value(participant.getId()));
+
+        // The admin's form still holds the participant list it loaded, without the newcomer
+        SessionDto updateSession = new SessionDto();
+        updateSession.setName("Updated Name");
+        updateSession.setDate(new Date());
+        updateSession.setDescription("Updated description");
+        updateSession.setTeacher_id(testSession.getTeacher().getId());
+        updateSession.setUsers(List.of());
+
+        mockMvc.perform(put("/api/session/{id}", testSession.getId())
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .header("If-Match", etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(updateSession)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Updated Name"))
+                .andExpect(jsonPath("$.users[0]").value(participant.getId()));
+    }
+
+    @Test
+    void update_shouldReturnPreconditionFailed_whenEditedMeanwhile() throws Exception {
+        String etag = mockMvc.perform(get("/api/session/{id}", testSession.getId())
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andReturn().getResponse().getHeader("ETag");
+        SessionDto firstEdit = new SessionDto();
+        firstEdit.setName("First Edit");
+        firstEdit.setDate(new Date());
+        firstEdit.setDescription("Edited by another admin");
+        firstEdit.setTeacher_id(testSession.getTeacher().getId());
+        mockMvc.perform(put("/api/session/{id}", testSession.getId())
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .header("If-Match", etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(firstEdit)))
+                .andExpect(status().isOk());
+
+        SessionDto updateSession = new SessionDto();
+        updateSession.setName("Updated Name");
+        updateSession.setDate(new Date());
+        updateSession.setDescription("Updated description");
+        updateSession.setTeacher_id(testSession.getTeacher().getId());
+
+        String currentEtag = mockMvc.perform(put("/api/session/{id}", testSession.getId())
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .header("If-Match", etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(updateSession)))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.message").exists())
+                .andExpect(jsonPath("$.current.name").value("First Edit"))
+                .andReturn().getResponse().getHeader("ETag");
+
         mockMvc.perform(put("/api/session/{id}", testSession.getId())
                         .header("Authorization", "Bearer " + jwtToken)
+                        .header("If-Match", currentEtag)
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(new ObjectMapper().writeValueAsString(updateSession)))
                 .andExpect(status().isOk())
@@ -238,4 +552,50 @@ public class SessionControllerIntegrationTest {
                         .header("Authorization", "Bearer " + jwtToken))
                 .andExpect(status().isOk());
     }
+
+    @Test
+    void findById_shouldReturnNotModified_untilParticipantsChange() throws Exception {
+        String etag = mockMvc.perform(get("/api/session/{id}", testSession.getId())
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(header().string("Cache-Control", "no-cache, private"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/session/{id}", testSession.getId())
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        User participant = userRepository.save(User.builder()
+                .email("etag@example.com")
+                .firstName("Etag")
+                .lastName("User")
+                .password("password")
+                .admin(false)
+                .build());
+        mockMvc.perform(post("/api/session/{id}/participate/{userId}", testSession.getId(), participant.getId())
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/session/{id}", testSession.getId())
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users[0]").value(participant.getId()));
+    }
+
+    @Test
+    void findAll_shouldNotSendETag_forUpcomingSessions() throws Exception {
+        mockMvc.perform(get("/api/session")
+                        .param("upcoming", "true")
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("ETag"));
+    }
+
+    private static String isoDate(long epochMs) {
+        return new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSXXX").format(new Date(epochMs));
+    }
 }
@@ -2,16 +2,36 @@ package com.openclassrooms.starterjwt.controllers;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.dto.SessionPageDto;
+import com.openclassrooms.starterjwt.dto.SessionSummary;
+import com.openclassrooms.starterjwt.exception.PreconditionFailedException;
+import com.openclassrooms.starterjwt.exception.ServiceUnavailableException;
 import com.openclassrooms.starterjwt.mapper.SessionMapper;
 import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.payload.request.EnrollmentRequest;
+import com.openclassrooms.starterjwt.payload.response.EnrollmentResponse;
+import com.openclassrooms.starterjwt.payload.response.SessionConflictResponse;
+import com.openclassrooms.starterjwt.repository.SessionFilter;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import com.openclassrooms.starterjwt.services.AttendanceExportService;
+import com.openclassrooms.starterjwt.services.EnrollmentService;
+import com.openclassrooms.starterjwt.services.SessionEventBroadcaster;
+import com.openclassrooms.starterjwt.services.ParticipationStatus;
+import com.openclassrooms.starterjwt.services.SessionPage;
 import com.openclassrooms.starterjwt.services.SessionService;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.Date;
@@ -28,6 +48,15 @@ public class SessionControllerTest {
     @Mock
     private SessionMapper sessionMapper;
 
+    @Mock
+    private EnrollmentService enrollmentService;
+
+    @Mock
+    private SessionEventBroadcaster sessionEventBroadcaster;
+
+    @Mock
+    private AttendanceExportService attendanceExportService;
+
     @InjectMocks
     private SessionController sessionController;
 
@@ -38,6 +67,11 @@ public class SessionControllerTest {
         MockitoAnnotations.openMocks(this); // Initializes the mocks
     }
 
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
     @Test
     void findById_shouldReturnSessionDto() {
         // Arrange
@@ -89,17 +123,108 @@ public class SessionControllerTest {
         when(sessionMapper.toDto(List.of(session))).thenReturn(List.of(dto));
 
         // Act
-        ResponseEntity<?> response = sessionController.findAll();
+        ResponseEntity<?> response = sessionController.findAll(null, 20, false, true, null, null, null, false, "asc");
 
         // Assert
         assertEquals(200, response.getStatusCodeValue());
         assertEquals(List.of(dto), response.getBody());
     }
 
+    @Test
+    void findAll_shouldReturnListOfSessionDtos_withoutPagingParameters() {
+        Session session = new Session();
+        SessionDto dto = new SessionDto();
+
+        when(sessionService.findAll()).thenReturn(List.of(session));
+        when(sessionMapper.toDto(List.of(session))).thenReturn(List.of(dto));
+
+        ResponseEntity<?> response = sessionController.findAll(null, null, false, false, null, null, null, false, null);
+
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals(List.of(dto), response.getBody());
+        verify(sessionService, never()).findPage(any(), anyInt(), anyBoolean(), any());
+    }
+
+    @Test
+    void findAll_shouldReturnPageOfSessionDtos_whenPagingIsRequested() {
+        // Arrange
+        Session session = new Session();
+        SessionDto dto = new SessionDto();
+
+        SessionFilter filter = SessionFilter.builder().from(new Date(1_000)).to(new Date(2_000))
+                .teacherId(3L).available(true).descending(true).build();
+        when(sessionService.findPage("cursor", 10, true, filter)).thenReturn(new SessionPage(List.of(session), "next"));
+        when(sessionMapper.toDto(List.of(session))).thenReturn(List.of(dto));
+
+        // Act
+        ResponseEntity<?> response = sessionController.findAll("cursor", 10, true, false,
+                new Date(1_000), new Date(2_000), 3L, true, "desc");
+
+        // Assert
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals(new SessionPageDto(List.of(dto), "next"), response.getBody());
+        verify(sessionService, never()).findAll();
+    }
+
+    @Test
+    void findAll_shouldReturnBadRequest_forUnknownSortOrder() {
+        ResponseEntity<?> response = sessionController.findAll(null, 20, false, false, null, null, null, false, "sideways");
+
+        assertEquals(400, response.getStatusCodeValue());
+        verifyNoInteractions(sessionService);
+    }
+
+    @Test
+    void events_shouldSubscribeToSessionChanges() {
+        SseEmitter emitter = new SseEmitter();
+        when(sessionEventBroadcaster.subscribe()).thenReturn(emitter);
+
+        assertSame(emitter, sessionController.events());
+    }
+
+    @Test
+    void handleServiceUnavailable_shouldAskClientsToRetryLater() {
+        ResponseEntity<?> response = sessionController.handleServiceUnavailable(new ServiceUnavailableException(30));
+
+        assertEquals(503, response.getStatusCodeValue());
+        assertEquals("30", response.getHeaders().getFirst("Retry-After"));
+    }
+
+    @Test
+    void search_shouldReturnMatchingSessionDtos() {
+        // Arrange
+        List<Session> sessions = List.of(new Session());
+        List<SessionDto> sessionDtos = List.of(new SessionDto());
+        when(sessionService.search("yoga", 20)).thenReturn(sessions);
+        when(sessionMapper.toDto(sessions)).thenReturn(sessionDtos);
+
+        // Act
+        ResponseEntity<?> response = sessionController.search("yoga", 20);
+
+        // Assert
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals(sessionDtos, response.getBody());
+    }
+
+    @Test
+    void findAllSummaries_shouldReturnSummaries() {
+        // Arrange
+        SessionSummary summary = new SessionSummary(1L, "Yoga", new Date(), 2L, "Jane", "Doe", 3L);
+        when(sessionService.findAllSummaries()).thenReturn(List.of(summary));
+
+        // Act
+        ResponseEntity<?> response = sessionController.findAllSummaries();
+
+        // Assert
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals(List.of(summary), response.getBody());
+        verifyNoInteractions(sessionMapper);
+    }
+
     @Test
     void create_shouldReturnCreatedSessionDto() {
         // Arrange
-        SessionDto dto = new SessionDto(1L, "name", new Date(), 1L, "desc", Collections.emptyList(), LocalDateTime.now(), LocalDateTime.now());
+        SessionDto dto = new SessionDto(1L, "name", new Date(), 1L, "desc", Collections.emptyList(), LocalDateTime.now(), LocalDateTime.now(), null, null, null);
         Session entity = new Session();
         entity.setId(1L);
 
@@ -118,19 +243,22 @@ public class SessionControllerTest {
     @Test
     void update_shouldReturnUpdatedSessionDto() {
         // Arrange
-        SessionDto dto = new SessionDto(1L, "name", new Date(), 1L, "desc", Collections.emptyList(), LocalDateTime.now(), LocalDateTime.now());
+        SessionDto dto = new SessionDto(1L, "name", new Date(), 1L, "desc", Collections.emptyList(), LocalDateTime.now(), LocalDateTime.now(), null, null, null);
         Session entity = new Session();
         entity.setId(1L);
+        entity.setVersion(4L);
+        entity.setParticipantsVersion(2L);
 
         when(sessionMapper.toEntity(dto)).thenReturn(entity);
-        when(sessionService.update(1L, entity)).thenReturn(entity);
+        when(sessionService.update(1L, entity, 3L)).thenReturn(entity);
         when(sessionMapper.toDto(entity)).thenReturn(dto);
 
         // Act
-        ResponseEntity<?> response = sessionController.update("1", dto);
+        ResponseEntity<?> response = sessionController.update("1", "\"session-3-1\"", dto);
 
         // Assert
         assertEquals(200, response.getStatusCodeValue());
+        assertEquals("\"session-4-2\"", response.getHeaders().getETag());
         assertEquals(dto, response.getBody());
     }
 
@@ -140,12 +268,71 @@ public class SessionControllerTest {
         SessionDto dto = new SessionDto();
 
         // Act
-        ResponseEntity<?> response = sessionController.update("abc", dto);
+        ResponseEntity<?> response = sessionController.update("abc", "\"session-0\"", dto);
 
         // Assert
         assertEquals(400, response.getStatusCodeValue());
     }
 
+    @Test
+    void update_shouldRequireIfMatch() {
+        ResponseEntity<?> response = sessionController.update("1", null, new SessionDto());
+
+        assertEquals(428, response.getStatusCodeValue());
+        verifyNoInteractions(sessionService);
+    }
+
+    @Test
+    void update_shouldReturnCurrentSession_whenVersionIsOutdated() {
+        SessionDto dto = new SessionDto();
+        Session entity = new Session();
+        Session current = new Session();
+        current.setId(1L);
+        current.setVersion(7L);
+        SessionDto currentDto = new SessionDto();
+
+        when(sessionMapper.toEntity(dto)).thenReturn(entity);
+        when(sessionService.update(1L, entity, 3L)).thenThrow(new PreconditionFailedException());
+        when(sessionService.getById(1L)).thenReturn(current);
+        when(sessionMapper.toDto(current)).thenReturn(currentDto);
+
+        ResponseEntity<?> response = sessionController.update("1", "\"session-3\"", dto);
+
+        assertEquals(412, response.getStatusCodeValue());
+        assertEquals("\"session-7-0\"", response.getHeaders().getETag());
+        assertSame(currentDto, ((SessionConflictResponse) response.getBody()).getCurrent());
+    }
+
+    @Test
+    void update_shouldReturnNotFound_whenSessionDeletedMeanwhile() {
+        SessionDto dto = new SessionDto();
+        when(sessionMapper.toEntity(dto)).thenReturn(new Session());
+        when(sessionService.update(eq(1L), any(), eq(3L))).thenThrow(new PreconditionFailedException());
+        when(sessionService.getById(1L)).thenReturn(null);
+
+        ResponseEntity<?> response = sessionController.update("1", "\"session-3\"", dto);
+
+        assertEquals(404, response.getStatusCodeValue());
+    }
+
+    @Test
+    void update_shouldReadIfMatch() {
+        SessionDto dto = new SessionDto();
+        Session entity = new Session();
+        when(sessionMapper.toEntity(dto)).thenReturn(entity);
+        when(sessionService.update(eq(1L), eq(entity), any())).thenReturn(entity);
+
+        sessionController.update("1", "*", dto);
+        sessionController.update("1", "\"session-5-9\"", dto);
+        sessionController.update("1", "W/\"session-3-0\"", dto);
+        sessionController.update("1", "\"session-x\"", dto);
+        sessionController.update("1", "\"teachers-3\"", dto);
+
+        verify(sessionService).update(1L, entity, null);
+        verify(sessionService).update(1L, entity, 5L);
+        verify(sessionService, times(3)).update(1L, entity, -1L);
+    }
+
     @Test
     void delete_shouldReturnOk_whenSessionExists() {
         // Arrange
@@ -191,6 +378,15 @@ public class SessionControllerTest {
         assertEquals(200, response.getStatusCodeValue());
     }
 
+    @Test
+    void participate_shouldReturnAccepted_whenWaitlisted() {
+        when(sessionService.participate(1L, 2L)).thenReturn(ParticipationStatus.WAITLISTED);
+
+        ResponseEntity<?> response = sessionController.participate("1", "2");
+
+        assertEquals(202, response.getStatusCodeValue());
+    }
+
     @Test
     void participate_shouldReturnBadRequest_onInvalidId() {
         // Act
@@ -218,4 +414,62 @@ public class SessionControllerTest {
         // Assert
         assertEquals(400, response.getStatusCodeValue());
     }
+
+    @Test
+    void enroll_shouldReturnResults_whenAdmin() {
+        authenticate(true);
+        EnrollmentRequest request = new EnrollmentRequest(List.of(new EnrollmentRequest.Item(1L, 2L)));
+        List<EnrollmentResponse> results = List.of(new EnrollmentResponse(1L, 2L, EnrollmentResponse.Status.ENROLLED));
+        when(enrollmentService.enroll(request.getEnrollments())).thenReturn(results);
+
+        ResponseEntity<?> response = sessionController.enroll(request);
+
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals(results, response.getBody());
+    }
+
+    @Test
+    void enroll_shouldReturnUnauthorized_whenNotAdmin() {
+        authenticate(false);
+
+        ResponseEntity<?> response = sessionController.enroll(new EnrollmentRequest(List.of(new EnrollmentRequest.Item(1L, 2L))));
+
+        assertEquals(401, response.getStatusCodeValue());
+        verifyNoInteractions(enrollmentService);
+    }
+
+    @Test
+    void export_shouldStreamAttendance_whenAdmin() throws Exception {
+        authenticate(true);
+        Date from = new Date(0);
+
+        ResponseEntity<StreamingResponseBody> response = sessionController.export("ndjson", from, null);
+
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals("application/x-ndjson;charset=UTF-8", response.getHeaders().getContentType().toString());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        verify(attendanceExportService).export(AttendanceExportService.Format.NDJSON, from, null, out);
+    }
+
+    @Test
+    void export_shouldReturnBadRequest_forUnknownFormat() {
+        authenticate(true);
+
+        assertEquals(400, sessionController.export("xlsx", null, null).getStatusCodeValue());
+        verifyNoInteractions(attendanceExportService);
+    }
+
+    @Test
+    void export_shouldReturnUnauthorized_whenNotAdmin() {
+        authenticate(false);
+
+        assertEquals(401, sessionController.export("csv", null, null).getStatusCodeValue());
+        verifyNoInteractions(attendanceExportService);
+    }
+
+    private static void authenticate(boolean admin) {
+        UserDetailsImpl principal = UserDetailsImpl.builder().id(1L).username("user@example.com").admin(admin).build();
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(principal, null));
+    }
 }
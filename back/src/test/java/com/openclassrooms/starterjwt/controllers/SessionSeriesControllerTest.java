@@ -0,0 +1,89 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import com.openclassrooms.starterjwt.dto.SessionSeriesDto;
+import com.openclassrooms.starterjwt.mapper.SessionSeriesMapper;
+import com.openclassrooms.starterjwt.models.SessionSeries;
+import com.openclassrooms.starterjwt.payload.request.SessionSeriesUpdateRequest;
+import com.openclassrooms.starterjwt.services.SessionSeriesService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SessionSeriesControllerTest {
+
+    @Mock
+    private SessionSeriesService sessionSeriesService;
+
+    @Mock
+    private SessionSeriesMapper sessionSeriesMapper;
+
+    @InjectMocks
+    private SessionSeriesController sessionSeriesController;
+
+    @Test
+    void findById_ShouldReturnSeriesDto_WhenSeriesExists() {
+        SessionSeries series = SessionSeries.builder().id(1L).build();
+        SessionSeriesDto dto = new SessionSeriesDto();
+        when(sessionSeriesService.getById(1L)).thenReturn(series);
+        when(sessionSeriesMapper.toDto(series)).thenReturn(dto);
+
+        ResponseEntity<?> response = sessionSeriesController.findById("1");
+
+        assertThat(response.getStatusCodeValue()).isEqualTo(200);
+        assertThat(response.getBody()).isSameAs(dto);
+    }
+
+    @Test
+    void findById_ShouldReturnNotFoundOrBadRequest() {
+        assertThat(sessionSeriesController.findById("1").getStatusCodeValue()).isEqualTo(404);
+        assertThat(sessionSeriesController.findById("invalid-id").getStatusCodeValue()).isEqualTo(400);
+    }
+
+    @Test
+    void create_ShouldReturnCreatedSeries() {
+        SessionSeriesDto dto = new SessionSeriesDto();
+        SessionSeries series = SessionSeries.builder().build();
+        when(sessionSeriesMapper.toEntity(dto)).thenReturn(series);
+        when(sessionSeriesService.create(series)).thenReturn(series);
+        when(sessionSeriesMapper.toDto(series)).thenReturn(dto);
+
+        ResponseEntity<?> response = sessionSeriesController.create(dto);
+
+        assertThat(response.getStatusCodeValue()).isEqualTo(200);
+        assertThat(response.getBody()).isSameAs(dto);
+    }
+
+    @Test
+    void update_ShouldApplyTemplateFromGivenDate() {
+        SessionSeriesUpdateRequest request = new SessionSeriesUpdateRequest();
+        SessionSeries template = SessionSeries.builder().build();
+        Date from = new Date(0);
+        when(sessionSeriesMapper.toEntity(request)).thenReturn(template);
+
+        ResponseEntity<?> response = sessionSeriesController.update("1", from, request);
+
+        assertThat(response.getStatusCodeValue()).isEqualTo(200);
+        verify(sessionSeriesService).updateFrom(1L, from, template);
+        assertThat(sessionSeriesController.update("invalid-id", null, request).getStatusCodeValue()).isEqualTo(400);
+    }
+
+    @Test
+    void cancel_ShouldDefaultToNow() {
+        ResponseEntity<?> response = sessionSeriesController.cancel("1", null);
+
+        assertThat(response.getStatusCodeValue()).isEqualTo(200);
+        verify(sessionSeriesService).cancelFrom(eq(1L), any(Date.class));
+        assertThat(sessionSeriesController.cancel("invalid-id", null).getStatusCodeValue()).isEqualTo(400);
+    }
+}
@@ -129,4 +129,28 @@ public class TeacherControllerIntegrationTest {
                 .andExpect(jsonPath("$[0].lastName").value("Doe"));
     }
 
+    @Test
+    void findAll_returnsNotModified_whenVersionIsUnchanged() throws Exception {
+        String etag = mockMvc.perform(get("/api/teacher")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/teacher")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .header("If-None-Match", etag)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified());
+
+        teacherRepository.save(Teacher.builder().firstName("John").lastName("Smith").build());
+
+        mockMvc.perform(get("/api/teacher")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .header("If-None-Match", etag)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+    }
 }
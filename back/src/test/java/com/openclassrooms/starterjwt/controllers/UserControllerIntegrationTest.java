@@ -84,6 +84,19 @@ public class UserControllerIntegrationTest {
     }
 
     // save is actually delete mapping: the original code has a strangely named method
+    @Test
+    void findSessions_ReturnsUpcomingSessionsOfUser() throws Exception {
+        mockMvc.perform(get("/api/user/" + testUser.getId() + "/sessions")
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sessions").isEmpty())
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+
+        mockMvc.perform(get("/api/user/" + (testUser.getId() + 1000) + "/sessions")
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void save_ReturnsNotFound_WhenUserDoesNotExist() throws Exception {
         Long nonExistentUserId = 9999L; // Assuming this ID doesn't exist
@@ -98,6 +111,10 @@ public class UserControllerIntegrationTest {
         mockMvc.perform(org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete("/api/user/" + testUser.getId())
                         .header("Authorization", "Bearer " + jwtToken))
                 .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/user/" + testUser.getId())
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isUnauthorized());
     }
 
     @Test
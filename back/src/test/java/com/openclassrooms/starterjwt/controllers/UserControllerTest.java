@@ -1,8 +1,10 @@
 package com.openclassrooms.starterjwt.controllers;
 
+import com.openclassrooms.starterjwt.dto.SessionSummaryPage;
 import com.openclassrooms.starterjwt.dto.UserDto;
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.services.UserService;
+import com.openclassrooms.starterjwt.services.UserSessionService;
 import com.openclassrooms.starterjwt.mapper.UserMapper;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -14,6 +16,8 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
 
@@ -26,6 +30,9 @@ class UserControllerTest {
     @Mock
     private UserMapper userMapper;
 
+    @Mock
+    private UserSessionService userSessionService;
+
     @InjectMocks
     private UserController userController;
 
@@ -111,7 +118,7 @@ class UserControllerTest {
 
         // Assert
         assertThat(response.getStatusCodeValue()).isEqualTo(200);  // 200 OK status
-        verify(userService, times(1)).delete(userId);  // Ensure the delete method was called
+        verify(userService, times(1)).delete(user);  // Ensure the delete method was called
     }
 
     @Test
@@ -142,7 +149,7 @@ class UserControllerTest {
 
         // Assert
         assertThat(response.getStatusCodeValue()).isEqualTo(401); // Unauthorized
-        verify(userService, never()).delete(anyLong()); // Should not delete
+        verify(userService, never()).delete(any()); // Should not delete
     }
 
     @Test
@@ -167,4 +174,22 @@ class UserControllerTest {
         assertThat(response.getStatusCodeValue()).isEqualTo(404); // Not Found
     }
 
+
+    @Test
+    void findSessions_ShouldReturnPage() {
+        SessionSummaryPage page = new SessionSummaryPage(List.of(), null);
+        when(userSessionService.findPage(1L, false, "cursor", 10)).thenReturn(page);
+
+        ResponseEntity<?> response = userController.findSessions("1", "past", "cursor", 10);
+
+        assertThat(response.getStatusCodeValue()).isEqualTo(200);
+        assertThat(response.getBody()).isSameAs(page);
+    }
+
+    @Test
+    void findSessions_ShouldReturnBadRequest_OnInvalidInput() {
+        assertThat(userController.findSessions("abc", "upcoming", null, 10).getStatusCodeValue()).isEqualTo(400);
+        assertThat(userController.findSessions("1", "soon", null, 10).getStatusCodeValue()).isEqualTo(400);
+        verifyNoInteractions(userSessionService);
+    }
 }
@@ -0,0 +1,107 @@
+package com.openclassrooms.starterjwt.mapper;
+
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+class SessionMapperIntegrationTest {
+
+    @Autowired
+    private SessionMapper sessionMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TeacherRepository teacherRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Teacher teacher;
+    private List<Long> userIds;
+
+    @BeforeEach
+    void setUp() {
+        teacher = teacherRepository.save(Teacher.builder().firstName("Margot").lastName("Delahaye").build());
+
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            users.add(User.builder()
+                    .email("mapper" + i + "@example.com")
+                    .firstName("Mapper")
+                    .lastName("User" + i)
+                    .password("password")
+                    .admin(false)
+                    .build());
+        }
+        userIds = userRepository.saveAll(users).stream().map(User::getId).collect(Collectors.toList());
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAllById(userIds);
+        teacherRepository.delete(teacher);
+    }
+
+    @Test
+    void toEntity_loadsNoParticipantWhateverTheirCount() {
+        assertThat(queriesToMap(userIds.subList(0, 1))).isZero();
+        assertThat(queriesToMap(userIds)).isZero();
+    }
+
+    @Test
+    void toEntity_keepsRequestOrderAndDropsDuplicateIds() {
+        List<Long> requested = List.of(userIds.get(2), userIds.get(1), userIds.get(2));
+
+        Session session = transactionTemplate.execute(status -> sessionMapper.toEntity(dto(requested)));
+
+        assertThat(session.getUsers()).extracting(User::getId).containsExactly(userIds.get(2), userIds.get(1));
+        assertThat(session.getTeacher().getId()).isEqualTo(teacher.getId());
+    }
+
+    private long queriesToMap(List<Long> participants) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        return transactionTemplate.execute(status -> {
+            statistics.clear();
+            Session session = sessionMapper.toEntity(dto(participants));
+            assertThat(session.getUsers()).hasSize(participants.size());
+            return statistics.getPrepareStatementCount();
+        });
+    }
+
+    private SessionDto dto(List<Long> participants) {
+        SessionDto dto = new SessionDto();
+        dto.setName("Mapped");
+        dto.setDescription("Mapped session");
+        dto.setDate(new Date());
+        dto.setTeacher_id(teacher.getId());
+        dto.setUsers(participants);
+        return dto;
+    }
+}
@@ -0,0 +1,41 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilterTest {
+
+    @Test
+    void mightContain_isTrueForEveryInsertedKey() {
+        BloomFilter bloomFilter = new BloomFilter(1000, 0.01);
+        String[] keys = new String[1000];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = UUID.randomUUID().toString();
+            bloomFilter.put(keys[i]);
+        }
+
+        for (String key : keys) {
+            assertThat(bloomFilter.mightContain(key)).isTrue();
+        }
+    }
+
+    @Test
+    void mightContain_staysNearConfiguredFalsePositiveRate() {
+        BloomFilter bloomFilter = new BloomFilter(1000, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            bloomFilter.put(UUID.randomUUID().toString());
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (bloomFilter.mightContain(UUID.randomUUID().toString())) {
+                falsePositives++;
+            }
+        }
+
+        assertThat(falsePositives).isLessThan(300);
+    }
+}
@@ -0,0 +1,121 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.PrematureJwtException;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SignatureException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JwtCodecTest {
+
+    private static final String SECRET = "openclassrooms";
+
+    private final JwtCodec jwtCodec = new JwtCodec(SECRET, 60_000);
+
+    private final UserDetailsImpl principal = UserDetailsImpl.builder()
+            .id(7L)
+            .username("user@example.com")
+            .firstName("John")
+            .lastName("Doe")
+            .admin(false)
+            .build();
+
+    @Test
+    void verify_returnsSubjectAndExpiry_forIssuedToken() {
+        VerifiedToken token = jwtCodec.verify(jwtCodec.issue(principal));
+
+        assertThat(token.getSubject()).isEqualTo("user@example.com");
+        assertThat(token.getUserId()).isEqualTo(7L);
+        assertThat(token.getAdmin()).isFalse();
+        assertThat(token.getExpiration()).isInTheFuture();
+        assertThat(token.getIssuedAt()).isBefore(token.getExpiration());
+    }
+
+    @Test
+    void issue_producesTokensJjwtCanVerify() {
+        Claims claims = Jwts.parser().setSigningKey(SECRET).parseClaimsJws(jwtCodec.issue(principal)).getBody();
+
+        assertThat(claims.getSubject()).isEqualTo("user@example.com");
+        assertThat(claims.get("id", Long.class)).isEqualTo(7L);
+        assertThat(claims.getExpiration()).isAfter(claims.getIssuedAt());
+    }
+
+    @Test
+    void verify_acceptsTokensIssuedByJjwt() {
+        String legacy = Jwts.builder()
+                .setSubject("legacy@example.com")
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(SignatureAlgorithm.HS512, SECRET)
+                .compact();
+
+        VerifiedToken token = jwtCodec.verify(legacy);
+
+        assertThat(token.getSubject()).isEqualTo("legacy@example.com");
+        assertThat(token.hasPrincipalClaims()).isFalse();
+    }
+
+    @Test
+    void verify_rejectsTamperedPayload() {
+        String jwt = jwtCodec.issue(principal);
+        String[] parts = jwt.split("\\.");
+        String forged = new JwtCodec(SECRET, 60_000).issue(UserDetailsImpl.builder().id(1L).username("admin@example.com").admin(true).build());
+
+        assertThrows(SignatureException.class, () -> jwtCodec.verify(parts[0] + "." + forged.split("\\.")[1] + "." + parts[2]));
+    }
+
+    @Test
+    void verify_rejectsOtherAlgorithms() {
+        String hs256 = Jwts.builder()
+                .setSubject("user@example.com")
+                .signWith(SignatureAlgorithm.HS256, SECRET)
+                .compact();
+        String unsigned = Jwts.builder().setSubject("user@example.com").compact();
+
+        assertThrows(MalformedJwtException.class, () -> jwtCodec.verify(hs256));
+        assertThrows(MalformedJwtException.class, () -> jwtCodec.verify(unsigned));
+        assertThrows(MalformedJwtException.class, () -> jwtCodec.verify("not-a-token"));
+        assertThrows(IllegalArgumentException.class, () -> jwtCodec.verify(""));
+    }
+
+    @Test
+    void verify_rejectsExpiredToken() {
+        String expired = Jwts.builder()
+                .setSubject("user@example.com")
+                .setExpiration(new Date(System.currentTimeMillis() - 1_000))
+                .signWith(SignatureAlgorithm.HS512, SECRET)
+                .compact();
+
+        assertThrows(ExpiredJwtException.class, () -> jwtCodec.verify(expired));
+    }
+
+    @Test
+    void verify_rejectsTokenNotValidYet() {
+        String early = Jwts.builder()
+                .setSubject("user@example.com")
+                .setNotBefore(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(SignatureAlgorithm.HS512, SECRET)
+                .compact();
+
+        assertThrows(PrematureJwtException.class, () -> jwtCodec.verify(early));
+    }
+
+    @Test
+    void verify_checksSignatureBeforeReadingPayload() {
+        String[] parts = jwtCodec.issue(principal).split("\\.");
+        String garbage = Base64.getUrlEncoder().withoutPadding().encodeToString("{not json".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(SignatureException.class, () -> jwtCodec.verify(parts[0] + "." + garbage + "." + parts[2]));
+    }
+}
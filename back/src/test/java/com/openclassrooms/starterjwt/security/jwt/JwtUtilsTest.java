@@ -0,0 +1,62 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtUtilsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private SecurityEventLogger securityEventLogger;
+    private JwtUtils jwtUtils;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        securityEventLogger = new SecurityEventLogger(meterRegistry, 10_000);
+        jwtUtils = new JwtUtils(new JwtCodec("openclassrooms", 60_000), securityEventLogger);
+    }
+
+    @Test
+    void parseJwtToken_returnsPrincipalClaims_ifTokenIsValid() {
+        UserDetailsImpl userDetails = UserDetailsImpl.builder()
+                .id(42L)
+                .username("user@example.com")
+                .firstName("John")
+                .lastName("Doe")
+                .admin(true)
+                .password("secret")
+                .build();
+        String jwt = jwtUtils.generateJwtToken(new UsernamePasswordAuthenticationToken(userDetails, null));
+
+        VerifiedToken token = jwtUtils.parseJwtToken(jwt);
+
+        assertThat(token.getSubject()).isEqualTo("user@example.com");
+        assertThat(token.getExpiration()).isInTheFuture();
+        assertThat(token.hasPrincipalClaims()).isTrue();
+
+        UserDetailsImpl principal = token.toUserDetails();
+        assertThat(principal.getId()).isEqualTo(42L);
+        assertThat(principal.getFirstName()).isEqualTo("John");
+        assertThat(principal.getLastName()).isEqualTo("Doe");
+        assertThat(principal.getAdmin()).isTrue();
+        assertThat(principal.getPassword()).isNull();
+    }
+
+    @Test
+    void parseJwtToken_returnsNull_ifSignatureIsInvalid() {
+        UserDetailsImpl userDetails = UserDetailsImpl.builder().id(1L).username("user@example.com").build();
+        String jwt = jwtUtils.generateJwtToken(new UsernamePasswordAuthenticationToken(userDetails, null));
+
+        JwtUtils otherSecret = new JwtUtils(new JwtCodec("another-secret", 60_000), securityEventLogger);
+
+        assertThat(otherSecret.parseJwtToken(jwt)).isNull();
+        assertThat(otherSecret.validateJwtToken(jwt)).isFalse();
+        assertThat(jwtUtils.validateJwtToken(jwt)).isTrue();
+        assertThat(meterRegistry.get("auth.security.events").tag("event", "jwt.signature").counter().count()).isEqualTo(2);
+    }
+}
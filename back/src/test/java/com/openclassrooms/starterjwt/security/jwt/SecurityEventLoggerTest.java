@@ -0,0 +1,43 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SecurityEventLoggerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private SecurityEventLogger securityEventLogger;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        securityEventLogger = new SecurityEventLogger(meterRegistry, 60_000);
+    }
+
+    @Test
+    void record_countsEveryEventButLogsOnlyOnePerInterval() {
+        for (int i = 0; i < 100; i++) {
+            securityEventLogger.record("jwt.expired", "JWT expired");
+        }
+        securityEventLogger.record("unauthorized", "Full authentication is required");
+
+        assertThat(meterRegistry.get("auth.security.events").tag("event", "jwt.expired").counter().count()).isEqualTo(100);
+        assertThat(meterRegistry.get("auth.security.events").tag("event", "unauthorized").counter().count()).isEqualTo(1);
+        assertThat(securityEventLogger.suppressed("jwt.expired")).isEqualTo(99);
+        assertThat(securityEventLogger.suppressed("unauthorized")).isZero();
+    }
+
+    @Test
+    void flush_resetsSuppressedCounts() {
+        securityEventLogger.record("jwt.malformed", "Invalid JWT");
+        securityEventLogger.record("jwt.malformed", "Invalid JWT");
+
+        securityEventLogger.flush();
+
+        assertThat(securityEventLogger.suppressed("jwt.malformed")).isZero();
+        assertThat(meterRegistry.get("auth.security.events").tag("event", "jwt.malformed").counter().count()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,145 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import com.openclassrooms.starterjwt.models.RevokedToken;
+import com.openclassrooms.starterjwt.repository.RevokedTokenRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TokenRevocationStoreTest {
+
+    @Mock
+    private RevokedTokenRepository revokedTokenRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private TokenRevocationStore tokenRevocationStore;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        tokenRevocationStore = new TokenRevocationStore(revokedTokenRepository, 60_000, 1000, meterRegistry);
+    }
+
+    @Test
+    void revoke_rejectsTokenAndPersistsIt() {
+        VerifiedToken token = token("jti-1", 1L, 60_000);
+
+        assertThat(tokenRevocationStore.isRevoked(token)).isFalse();
+        tokenRevocationStore.revoke(token);
+
+        assertThat(tokenRevocationStore.isRevoked(token)).isTrue();
+        assertThat(tokenRevocationStore.isRevoked(token("jti-2", 1L, 60_000))).isFalse();
+        ArgumentCaptor<RevokedToken> saved = ArgumentCaptor.forClass(RevokedToken.class);
+        verify(revokedTokenRepository).save(saved.capture());
+        assertThat(saved.getValue().getTokenId()).isEqualTo("jti-1");
+        assertThat(meterRegistry.get("auth.jwt.revoked").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void revoke_keepsTokenWithoutExpiryForTheTokenLifetime() {
+        VerifiedToken token = VerifiedToken.builder().tokenId("jti-no-exp").subject("user@example.com").userId(1L).build();
+        tokenRevocationStore.revoke(token);
+
+        assertThat(tokenRevocationStore.isRevoked(token)).isTrue();
+        ArgumentCaptor<RevokedToken> saved = ArgumentCaptor.forClass(RevokedToken.class);
+        verify(revokedTokenRepository).save(saved.capture());
+        // The store was built with a 60 s token lifetime
+        assertThat(saved.getValue().getExpiresAt()).isAfter(LocalDateTime.now().plusSeconds(50));
+    }
+
+    @Test
+    void revoke_ignoresDuplicates() {
+        when(revokedTokenRepository.save(any())).thenThrow(new DataIntegrityViolationException("duplicate"));
+        VerifiedToken token = token("jti-1", 1L, 60_000);
+
+        tokenRevocationStore.revoke(token);
+        tokenRevocationStore.revoke(token);
+
+        assertThat(tokenRevocationStore.isRevoked(token)).isTrue();
+        verify(revokedTokenRepository, times(1)).save(any());
+    }
+
+    @Test
+    void revokeUser_rejectsEveryTokenOfThatUser() {
+        tokenRevocationStore.revokeUser(7L);
+
+        assertThat(tokenRevocationStore.isRevoked(token("jti-1", 7L, 60_000))).isTrue();
+        assertThat(tokenRevocationStore.isRevoked(token("jti-2", 7L, 60_000))).isTrue();
+        assertThat(tokenRevocationStore.isRevoked(token("jti-3", 8L, 60_000))).isFalse();
+    }
+
+    @Test
+    void revokeUser_acceptsTokensIssuedAfterwards() {
+        VerifiedToken before = token("jti-1", 7L, 60_000, new Date(System.currentTimeMillis() - 5_000));
+        tokenRevocationStore.revokeUser(7L);
+        VerifiedToken after = token("jti-2", 7L, 60_000, new Date(System.currentTimeMillis() + 5_000));
+
+        assertThat(tokenRevocationStore.isRevoked(before)).isTrue();
+        assertThat(tokenRevocationStore.isRevoked(after)).isFalse();
+    }
+
+    @Test
+    void revokeUser_renewsEntryAlreadyStoredByAnotherNode() {
+        when(revokedTokenRepository.save(any())).thenThrow(new DataIntegrityViolationException("duplicate"));
+
+        tokenRevocationStore.revokeUser(7L);
+
+        verify(revokedTokenRepository).renew(eq("user:7"), any(), any());
+        assertThat(tokenRevocationStore.isRevoked(token("jti-1", 7L, 60_000))).isTrue();
+    }
+
+    @Test
+    void sync_keepsRevocationsMadeWhileRebuilding() {
+        when(revokedTokenRepository.findByExpiresAtAfter(any())).thenAnswer(invocation -> {
+            tokenRevocationStore.revoke(token("jti-during-sync", 1L, 60_000));
+            return Collections.emptyList();
+        });
+
+        tokenRevocationStore.sync();
+
+        assertThat(tokenRevocationStore.isRevoked(token("jti-during-sync", 1L, 60_000))).isTrue();
+    }
+
+    @Test
+    void sync_loadsPersistedEntriesAndDropsExpiredOnes() {
+        when(revokedTokenRepository.findByExpiresAtAfter(any()))
+                .thenReturn(Collections.singletonList(new RevokedToken(1L, "jti-db", LocalDateTime.now().plusMinutes(5), LocalDateTime.now())));
+        tokenRevocationStore.revoke(token("jti-expired", 1L, -1_000));
+
+        tokenRevocationStore.sync();
+
+        verify(revokedTokenRepository).deleteExpired(any());
+        assertThat(tokenRevocationStore.isRevoked(token("jti-db", 1L, 60_000))).isTrue();
+        assertThat(tokenRevocationStore.isRevoked(token("jti-expired", 1L, 60_000))).isFalse();
+        assertThat(meterRegistry.get("auth.jwt.revoked").gauge().value()).isEqualTo(1);
+    }
+
+    private static VerifiedToken token(String tokenId, Long userId, long expiresInMs) {
+        return token(tokenId, userId, expiresInMs, null);
+    }
+
+    private static VerifiedToken token(String tokenId, Long userId, long expiresInMs, Date issuedAt) {
+        return VerifiedToken.builder()
+                .tokenId(tokenId)
+                .subject("user@example.com")
+                .userId(userId)
+                .issuedAt(issuedAt)
+                .expiration(new Date(System.currentTimeMillis() + expiresInMs))
+                .build();
+    }
+}
@@ -0,0 +1,68 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VerifiedTokenCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private VerifiedTokenCache cache;
+    private AtomicInteger verifications;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new VerifiedTokenCache(100, meterRegistry);
+        verifications = new AtomicInteger();
+    }
+
+    private Function<String, VerifiedToken> verifier(Date expiration) {
+        return token -> {
+            verifications.incrementAndGet();
+            return VerifiedToken.builder().subject("user@example.com").expiration(expiration).build();
+        };
+    }
+
+    @Test
+    void get_verifiesTokenOnlyOnce_ifTokenIsStillValid() {
+        Date expiration = new Date(System.currentTimeMillis() + 60_000);
+
+        VerifiedToken first = cache.get("token", verifier(expiration));
+        VerifiedToken second = cache.get("token", verifier(expiration));
+
+        assertThat(first.getSubject()).isEqualTo("user@example.com");
+        assertThat(second).isSameAs(first);
+        assertThat(verifications.get()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void get_verifiesAgain_ifTokenIsExpired() {
+        Date expiration = new Date(System.currentTimeMillis() - 1);
+
+        cache.get("token", verifier(expiration));
+        cache.get("token", verifier(expiration));
+
+        assertThat(verifications.get()).isEqualTo(2);
+    }
+
+    @Test
+    void get_doesNotCacheRejectedTokens() {
+        Function<String, VerifiedToken> rejecting = token -> {
+            verifications.incrementAndGet();
+            return null;
+        };
+
+        assertThat(cache.get("bad-token", rejecting)).isNull();
+        assertThat(cache.get("bad-token", rejecting)).isNull();
+        assertThat(verifications.get()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,18 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BCryptStrengthCalibratorTest {
+
+    @Test
+    void calibrate_neverGoesBelowMinimum_ifBudgetIsTooSmall() {
+        assertThat(BCryptStrengthCalibrator.calibrate(0, 4, 6)).isEqualTo(4);
+    }
+
+    @Test
+    void calibrate_staysWithinBounds_forGenerousBudget() {
+        assertThat(BCryptStrengthCalibrator.calibrate(10_000, 4, 6)).isEqualTo(6);
+    }
+}
@@ -0,0 +1,94 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import com.openclassrooms.starterjwt.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+class BoundedPasswordEncoderTest {
+
+    private PasswordEncoder delegate;
+    private SimpleMeterRegistry meterRegistry;
+    private BoundedPasswordEncoder encoder;
+
+    @BeforeEach
+    void setUp() {
+        delegate = mock(PasswordEncoder.class);
+        meterRegistry = new SimpleMeterRegistry();
+        encoder = new BoundedPasswordEncoder(delegate, 1, 1, 10, 2, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        encoder.destroy();
+    }
+
+    @Test
+    void encodeAndMatches_delegateOnHashingPool_andRecordLatency() {
+        when(delegate.encode("secret")).thenReturn("hash");
+        when(delegate.matches("secret", "hash")).thenReturn(true);
+
+        assertThat(encoder.encode("secret")).isEqualTo("hash");
+        assertThat(encoder.matches("secret", "hash")).isTrue();
+
+        assertThat(meterRegistry.get("auth.password.hash").tag("operation", "encode").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("auth.password.hash").tag("operation", "matches").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("executor.queued").tag("name", "passwordHashing").gauge().value()).isZero();
+    }
+
+    @Test
+    void encode_rethrowsDelegateException() {
+        when(delegate.encode("secret")).thenThrow(new IllegalArgumentException("boom"));
+
+        assertThrows(IllegalArgumentException.class, () -> encoder.encode("secret"));
+    }
+
+    @Test
+    void encode_failsFast_ifQueueIsFull() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(delegate.encode("slow")).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return "hash";
+        });
+
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode("slow"));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> encoder.encode("slow"));
+        while (meterRegistry.get("executor.queued").gauge().value() < 1) {
+            Thread.sleep(5);
+        }
+
+        ServiceUnavailableException thrown = assertThrows(ServiceUnavailableException.class, () -> encoder.encode("slow"));
+
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("hash");
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("hash");
+        assertThat(thrown.getRetryAfterSeconds()).isEqualTo(2);
+        assertThat(meterRegistry.get("auth.password.hash.rejected").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void constructor_rejectsBudgetTakingEveryRequestThread() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new BoundedPasswordEncoder(delegate, 4, 6, 10, 2, meterRegistry));
+    }
+
+    @Test
+    void upgradeEncoding_delegates() {
+        when(delegate.upgradeEncoding("hash")).thenReturn(true);
+
+        assertThat(encoder.upgradeEncoding("hash")).isTrue();
+    }
+}
@@ -0,0 +1,66 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import com.openclassrooms.starterjwt.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LoginThrottleTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private LoginThrottle loginThrottle;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        loginThrottle = new LoginThrottle(2, 1, 3, 1, meterRegistry);
+    }
+
+    @Test
+    void acquire_rejectsEmail_onceBucketIsEmpty() {
+        loginThrottle.acquire("user@example.com", "10.0.0.1");
+        loginThrottle.acquire("USER@example.com", "10.0.0.2");
+
+        TooManyRequestsException thrown = assertThrows(TooManyRequestsException.class,
+                () -> loginThrottle.acquire("user@example.com", "10.0.0.3"));
+
+        assertThat(thrown.getRetryAfterSeconds()).isPositive();
+        assertThat(meterRegistry.get("auth.login.throttled").tag("key", "email").counter().count()).isEqualTo(1);
+        assertDoesNotThrow(() -> loginThrottle.acquire("other@example.com", "10.0.0.3"));
+    }
+
+    @Test
+    void acquire_rejectsAddress_onceBucketIsEmpty() {
+        loginThrottle.acquire("a@example.com", "10.0.0.1");
+        loginThrottle.acquire("b@example.com", "10.0.0.1");
+        loginThrottle.acquire("c@example.com", "10.0.0.1");
+
+        assertThrows(TooManyRequestsException.class, () -> loginThrottle.acquire("d@example.com", "10.0.0.1"));
+        assertThat(meterRegistry.get("auth.login.throttled").tag("key", "address").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void evictIdleBuckets_keepsBucketsThatAreNotRefilled() {
+        loginThrottle.acquire("user@example.com", "10.0.0.1");
+
+        loginThrottle.evictIdleBuckets();
+
+        assertThat(loginThrottle.size()).isEqualTo(2);
+        assertThat(meterRegistry.get("auth.login.throttle.buckets").gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    void tokenBucket_refillsOverTime() {
+        TokenBucket bucket = new TokenBucket(1, 0.001, 0);
+
+        assertThat(bucket.tryConsume(0)).isZero();
+        assertThat(bucket.tryConsume(0)).isEqualTo(1000);
+        assertThat(bucket.tryConsume(1000)).isZero();
+        assertThat(bucket.isFull(1000)).isFalse();
+        assertThat(bucket.isFull(2000)).isTrue();
+    }
+}
@@ -0,0 +1,88 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserDetailsCacheTest {
+
+    @Mock
+    private UserDetailsServiceImpl userDetailsService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private UserDetailsCache userDetailsCache;
+
+    private final UserDetailsImpl user = UserDetailsImpl.builder()
+            .id(1L)
+            .username("user@example.com")
+            .password("hash")
+            .build();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        userDetailsCache = new UserDetailsCache(userDetailsService, 100, 60_000, meterRegistry);
+    }
+
+    @Test
+    void loadUserByUsername_queriesDelegateOnce_ifUserIsCached() {
+        when(userDetailsService.loadUserByUsername("user@example.com")).thenReturn(user);
+
+        UserDetails first = userDetailsCache.loadUserByUsername("user@example.com");
+        UserDetails second = userDetailsCache.loadUserByUsername("user@example.com");
+
+        assertThat(second).isSameAs(first);
+        verify(userDetailsService, times(1)).loadUserByUsername("user@example.com");
+        assertThat(meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.load").tag("result", "success").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void loadUserByUsername_throwsAndDoesNotCache_ifUserIsUnknown() {
+        when(userDetailsService.loadUserByUsername("missing@example.com"))
+                .thenThrow(new UsernameNotFoundException("User Not Found with email: missing@example.com"));
+
+        assertThrows(UsernameNotFoundException.class, () -> userDetailsCache.loadUserByUsername("missing@example.com"));
+        assertThrows(UsernameNotFoundException.class, () -> userDetailsCache.loadUserByUsername("missing@example.com"));
+
+        verify(userDetailsService, times(2)).loadUserByUsername("missing@example.com");
+    }
+
+    @Test
+    void evict_reloadsUser_onNextLookup() {
+        when(userDetailsService.loadUserByUsername("user@example.com")).thenReturn(user);
+
+        userDetailsCache.loadUserByUsername("user@example.com");
+        userDetailsCache.evict("user@example.com");
+        userDetailsCache.loadUserByUsername("user@example.com");
+
+        verify(userDetailsService, times(2)).loadUserByUsername("user@example.com");
+    }
+
+    @Test
+    void updatePassword_replacesCachedUser() {
+        UserDetailsImpl rehashed = UserDetailsImpl.builder()
+                .id(1L)
+                .username("user@example.com")
+                .password("new-hash")
+                .build();
+        when(userDetailsService.loadUserByUsername("user@example.com")).thenReturn(user);
+        when(userDetailsService.updatePassword(user, "new-hash")).thenReturn(rehashed);
+
+        userDetailsCache.loadUserByUsername("user@example.com");
+        userDetailsCache.updatePassword(user, "new-hash");
+
+        assertThat(userDetailsCache.loadUserByUsername("user@example.com")).isSameAs(rehashed);
+        verify(userDetailsService, times(1)).loadUserByUsername("user@example.com");
+    }
+}
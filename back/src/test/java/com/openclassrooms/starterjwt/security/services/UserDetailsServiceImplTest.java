@@ -74,4 +74,25 @@ public class UserDetailsServiceImplTest {
         assertThat(thrown.getMessage()).isEqualTo("User Not Found with email: " + email);
         verify(userRepository).findByEmail(email);
     }
+
+    @Test
+    void updatePassword_storesNewHash_andReturnsRefreshedUserDetails() {
+        User mockUser = new User()
+                .setId(1L)
+                .setEmail("test@example.com")
+                .setFirstName("John")
+                .setLastName("Doe")
+                .setPassword("old-hash")
+                .setAdmin(false);
+        UserDetails current = UserDetailsImpl.builder().id(1L).username("test@example.com").password("old-hash").build();
+
+        when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(mockUser));
+        when(userRepository.save(mockUser)).thenReturn(mockUser);
+
+        UserDetails updated = userDetailsService.updatePassword(current, "new-hash");
+
+        assertThat(mockUser.getPassword()).isEqualTo("new-hash");
+        assertThat(updated.getPassword()).isEqualTo("new-hash");
+        assertThat(((UserDetailsImpl) updated).getId()).isEqualTo(1L);
+    }
 }
@@ -0,0 +1,129 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.services.AttendanceExportService.Format;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class AttendanceExportServiceIntegrationTest {
+
+    private static final long DAY = 86_400_000L;
+
+    @Autowired
+    private AttendanceExportService exportService;
+
+    @Autowired
+    private SessionService sessionService;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Session yoga;
+    private Session empty;
+    private User alice;
+    private User bob;
+
+    @BeforeEach
+    void setUp() {
+        sessionRepository.deleteAll();
+        userRepository.deleteAll();
+
+        yoga = sessionRepository.save(Session.builder()
+                .name("Yoga, \"doux\"").description("Morning").date(new Date(10 * DAY)).users(List.of()).build());
+        empty = sessionRepository.save(Session.builder()
+                .name("Pilates").description("Evening").date(new Date(20 * DAY)).users(List.of()).build());
+        alice = userRepository.save(user("alice", "Alice"));
+        bob = userRepository.save(user("bob", "=cmd()"));
+        sessionService.participate(yoga.getId(), bob.getId());
+        sessionService.participate(yoga.getId(), alice.getId());
+    }
+
+    @AfterEach
+    void tearDown() {
+        sessionRepository.deleteAll();
+    }
+
+    @Test
+    void export_writesEscapedCsvRowsInKeyOrder() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.export(Format.CSV, null, null, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertThat(lines).hasSize(4);
+        assertThat(lines[0]).isEqualTo("session_id,session_name,session_date,teacher_id,user_id,email,first_name,last_name");
+        assertThat(lines[1]).isEqualTo(yoga.getId() + ",\"Yoga, \"\"doux\"\"\",1970-01-11T00:00:00Z,,"
+                + alice.getId() + ",alice@example.com,Alice,Exported");
+        assertThat(lines[2]).isEqualTo(yoga.getId() + ",\"Yoga, \"\"doux\"\"\",1970-01-11T00:00:00Z,,"
+                + bob.getId() + ",bob@example.com,'=cmd(),Exported");
+        assertThat(lines[3]).isEqualTo(empty.getId() + ",Pilates,1970-01-21T00:00:00Z,,,,,");
+    }
+
+    @Test
+    void export_writesOneJsonObjectPerLineWithinDates() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.export(Format.NDJSON, new Date(15 * DAY), new Date(25 * DAY), out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(1);
+        JsonNode row = new ObjectMapper().readTree(lines[0]);
+        assertThat(row.get("session_id").asLong()).isEqualTo(empty.getId());
+        assertThat(row.get("session_name").asText()).isEqualTo("Pilates");
+        assertThat(row.get("user_id").isNull()).isTrue();
+    }
+
+    @Test
+    void export_flushesWhileRowsAreRead() throws Exception {
+        List<Session> sessions = new ArrayList<>();
+        for (int i = 0; i < 1500; i++) {
+            sessions.add(Session.builder().name("Session " + i).description("Bulk").date(new Date()).users(List.of()).build());
+        }
+        sessionRepository.saveAll(sessions);
+        List<Integer> flushedSizes = new ArrayList<>();
+        ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public void flush() {
+                flushedSizes.add(size());
+            }
+        };
+
+        exportService.export(Format.NDJSON, null, null, out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8).split("\n")).hasSize(1503);
+        assertThat(flushedSizes).hasSizeGreaterThanOrEqualTo(2);
+        assertThat(flushedSizes.get(0)).isLessThan(out.size());
+    }
+
+    private static User user(String name, String firstName) {
+        return User.builder()
+                .email(name + "@example.com")
+                .firstName(firstName)
+                .lastName("Exported")
+                .password("password")
+                .admin(false)
+                .build();
+    }
+}
@@ -0,0 +1,114 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.payload.request.EnrollmentRequest;
+import com.openclassrooms.starterjwt.payload.response.EnrollmentResponse;
+import com.openclassrooms.starterjwt.payload.response.EnrollmentResponse.Status;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.repository.WaitlistRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class EnrollmentServiceIntegrationTest {
+
+    @Autowired
+    private EnrollmentService enrollmentService;
+
+    @Autowired
+    private SessionService sessionService;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private WaitlistRepository waitlistRepository;
+
+    private Session limited;
+    private Session open;
+    private User alice;
+    private User bob;
+    private User carol;
+
+    @BeforeEach
+    void setUp() {
+        sessionRepository.deleteAll();
+        waitlistRepository.deleteAll();
+        userRepository.deleteAll();
+
+        limited = sessionRepository.save(Session.builder()
+                .name("Limited").description("Two seats").date(new Date()).capacity(2).users(List.of()).build());
+        open = sessionRepository.save(Session.builder()
+                .name("Open").description("No limit").date(new Date()).users(List.of()).build());
+        alice = userRepository.save(user("alice"));
+        bob = userRepository.save(user("bob"));
+        carol = userRepository.save(user("carol"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        sessionRepository.deleteAll();
+        waitlistRepository.deleteAll();
+    }
+
+    @Test
+    void enroll_returnsPerItemResultsAndRespectsCapacity() {
+        sessionService.participate(limited.getId(), alice.getId());
+
+        List<EnrollmentResponse> results = enrollmentService.enroll(List.of(
+                item(limited, alice),
+                item(limited, bob),
+                item(limited, carol),
+                item(limited, carol),
+                item(open, alice),
+                item(open, bob),
+                new EnrollmentRequest.Item(open.getId(), carol.getId() + 1000),
+                new EnrollmentRequest.Item(limited.getId() + 1000, alice.getId())));
+
+        assertThat(results).extracting(EnrollmentResponse::getStatus).containsExactly(
+                Status.ALREADY_ENROLLED,
+                Status.ENROLLED,
+                Status.WAITLISTED,
+                Status.ALREADY_WAITLISTED,
+                Status.ENROLLED,
+                Status.ENROLLED,
+                Status.USER_NOT_FOUND,
+                Status.SESSION_NOT_FOUND);
+
+        Session limitedAfter = sessionRepository.findById(limited.getId()).orElseThrow();
+        assertThat(limitedAfter.getParticipantCount()).isEqualTo(2);
+        assertThat(limitedAfter.getUsers()).extracting(User::getId).containsExactlyInAnyOrder(alice.getId(), bob.getId());
+        assertThat(sessionRepository.findById(open.getId()).orElseThrow().getParticipantCount()).isEqualTo(2);
+        assertThat(waitlistRepository.findFirstBySessionIdOrderByIdAsc(limited.getId()).orElseThrow().getUserId())
+                .isEqualTo(carol.getId());
+    }
+
+    private static EnrollmentRequest.Item item(Session session, User user) {
+        return new EnrollmentRequest.Item(session.getId(), user.getId());
+    }
+
+    private static User user(String name) {
+        return User.builder()
+                .email(name + "@example.com")
+                .firstName(name)
+                .lastName("Enrolled")
+                .password("password")
+                .admin(false)
+                .build();
+    }
+}
@@ -0,0 +1,94 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ResourceVersionsTest {
+
+    @Mock
+    private SessionRepository sessionRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @InjectMocks
+    private ResourceVersions resourceVersions;
+
+    @Test
+    void versions_areDerivedFromTheDataAlone() {
+        LocalDateTime updatedAt = LocalDateTime.of(2030, 1, 7, 18, 0);
+        when(sessionRepository.findFingerprint()).thenReturn(row(2L, 9L, 3L, 5L, updatedAt));
+        when(userRepository.findFingerprint()).thenReturn(row(1L, 4L, null));
+
+        // Another node reading the same tables
+        ResourceVersions otherNode = new ResourceVersions(sessionRepository, userRepository);
+
+        assertThat(resourceVersions.sessions()).isEqualTo("2-9-3-5-" + Timestamp.valueOf(updatedAt).getTime());
+        assertThat(otherNode.sessions()).isEqualTo(resourceVersions.sessions());
+        assertThat(resourceVersions.users()).isEqualTo("1-4-0");
+        assertThat(otherNode.users()).isEqualTo(resourceVersions.users());
+    }
+
+    @Test
+    void versions_areReadAgainOnlyAfterCommittedChanges() {
+        when(sessionRepository.findFingerprint())
+                .thenReturn(row(2L, 9L, 3L, 5L, null))
+                .thenReturn(row(2L, 9L, 3L, 6L, null));
+        when(userRepository.findFingerprint()).thenReturn(row(1L, 4L, null));
+
+        String sessions = resourceVersions.sessions();
+        String users = resourceVersions.users();
+        assertThat(resourceVersions.sessions()).isEqualTo(sessions);
+        verify(sessionRepository, times(1)).findFingerprint();
+
+        resourceVersions.onSessionChanged(new SessionChangedEvent(1L, true));
+
+        assertThat(resourceVersions.sessions()).isNotEqualTo(sessions);
+        assertThat(resourceVersions.users()).isEqualTo(users);
+        verify(userRepository, times(1)).findFingerprint();
+
+        resourceVersions.onUserChanged(new UserChangedEvent(1L));
+        resourceVersions.users();
+        verify(userRepository, times(2)).findFingerprint();
+    }
+
+    @Test
+    void checkExternalChanges_readsBothTablesAgain() {
+        when(sessionRepository.findFingerprint())
+                .thenReturn(row(2L, 9L, 3L, 5L, null))
+                .thenReturn(row(3L, 10L, 3L, 5L, null));
+        when(userRepository.findFingerprint())
+                .thenReturn(row(1L, 4L, null))
+                .thenReturn(row(0L, 0L, null));
+
+        String sessions = resourceVersions.sessions();
+        String users = resourceVersions.users();
+
+        resourceVersions.checkExternalChanges();
+
+        assertThat(resourceVersions.sessions()).isNotEqualTo(sessions);
+        assertThat(resourceVersions.users()).isNotEqualTo(users);
+    }
+
+    private static List<Object[]> row(Object... values) {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(values);
+        return rows;
+    }
+}
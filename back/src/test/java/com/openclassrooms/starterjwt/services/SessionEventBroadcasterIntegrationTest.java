@@ -0,0 +1,140 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.payload.response.SessionChangeMessage;
+import com.openclassrooms.starterjwt.payload.response.SessionChangeMessage.Type;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.security.jwt.JwtUtils;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class SessionEventBroadcasterIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @SpyBean
+    private SessionEventBroadcaster sessionEventBroadcaster;
+
+    @AfterEach
+    void tearDown() {
+        sessionRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void events_shouldStreamCommittedSessionChanges() throws Exception {
+        Session session = sessionRepository.save(Session.builder()
+                .name("Streamed session")
+                .description("Watched by a subscriber")
+                .date(new Date())
+                .users(List.of())
+                .build());
+        DeliveryEmitter emitter = new DeliveryEmitter(session.getId());
+        doReturn(emitter).when(sessionEventBroadcaster).newEmitter(anyLong());
+
+        MvcResult result = mockMvc.perform(get("/api/session/events")
+                        .accept(MediaType.TEXT_EVENT_STREAM)
+                        .header("Authorization", "Bearer " + token()))
+                .andExpect(request().asyncStarted())
+                .andExpect(header().doesNotExist("ETag"))
+                .andReturn();
+
+        session.setName("Renamed session");
+        sessionRepository.save(session);
+
+        assertThat(emitter.delivered.await(5, TimeUnit.SECONDS)).isTrue();
+        // Completing takes the emitter's lock, so the sender is done writing to the response
+        emitter.complete();
+        assertThat(result.getResponse().getContentAsString())
+                .contains("event:session")
+                .contains("\"sessionId\":" + session.getId() + ",\"type\":\"UPDATED\"");
+    }
+
+    private String token() {
+        User user = userRepository.save(User.builder()
+                .email("subscriber@example.com")
+                .firstName("Sub")
+                .lastName("Scriber")
+                .password("password")
+                .admin(false)
+                .build());
+        UserDetailsImpl userDetails = UserDetailsImpl.builder()
+                .id(user.getId())
+                .username(user.getEmail())
+                .firstName(user.getFirstName())
+                .lastName(user.getLastName())
+                .admin(user.isAdmin())
+                .password(user.getPassword())
+                .build();
+        Authentication authentication = mock(Authentication.class);
+        when(authentication.getPrincipal()).thenReturn(userDetails);
+        return jwtUtils.generateJwtToken(authentication);
+    }
+
+    /** Signals once the update of the watched session has been written to the response. */
+    private static class DeliveryEmitter extends SseEmitter {
+        private final CountDownLatch delivered = new CountDownLatch(1);
+
+        private final Long sessionId;
+
+        private DeliveryEmitter(Long sessionId) {
+            super(60_000L);
+            this.sessionId = sessionId;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            super.send(builder);
+            // Reading the built parts after sending leaves what went out untouched
+            builder.build().forEach(part -> {
+                if (part.getData() instanceof SessionChangeMessage) {
+                    SessionChangeMessage message = (SessionChangeMessage) part.getData();
+                    if (sessionId.equals(message.getSessionId()) && message.getType() == Type.UPDATED) {
+                        delivered.countDown();
+                    }
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.exception.ServiceUnavailableException;
+import com.openclassrooms.starterjwt.payload.response.SessionChangeMessage;
+import com.openclassrooms.starterjwt.payload.response.SessionChangeMessage.Type;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SessionEventBroadcasterTest {
+
+    private final SessionRepository sessionRepository = mock(SessionRepository.class);
+
+    private final List<Object> sent = new CopyOnWriteArrayList<>();
+
+    private final CountDownLatch sending = new CountDownLatch(1);
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private SessionEventBroadcaster broadcaster;
+
+    @BeforeEach
+    void setUp() {
+        List<Object[]> seats = new ArrayList<>();
+        seats.add(new Object[]{3, 10});
+        when(sessionRepository.findSeatsById(anyLong())).thenReturn(seats);
+
+        broadcaster = new SessionEventBroadcaster(sessionRepository, new SimpleMeterRegistry(), 2, 60_000, 1, 1) {
+            @Override
+            SseEmitter newEmitter(long timeoutMs) {
+                return new RecordingEmitter();
+            }
+        };
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        broadcaster.destroy();
+    }
+
+    @Test
+    void slowSubscriber_getsCoalescedChangesThenResync() throws Exception {
+        broadcaster.subscribe();
+        // The first heartbeat blocks the only sender until released
+        assertThat(sending.await(5, TimeUnit.SECONDS)).isTrue();
+
+        broadcaster.onSessionChanged(new SessionChangedEvent(1L, false));
+        broadcaster.onSessionChanged(new SessionChangedEvent(1L, true));
+        broadcaster.onSessionChanged(new SessionChangedEvent(2L, true));
+        broadcaster.onSessionChanged(new SessionChangedEvent(3L, true));
+        broadcaster.onSessionChanged(new SessionChangedEvent(4L, true));
+        release.countDown();
+        awaitSent(3);
+
+        assertThat(sent.get(0)).isEqualTo("heartbeat");
+        assertThat(messageAt(1).getType()).isEqualTo(Type.RESYNC);
+        assertThat(messageAt(2).getSessionId()).isEqualTo(4L);
+        assertThat(messageAt(2).getType()).isEqualTo(Type.PARTICIPANTS);
+        assertThat(messageAt(2).getParticipantCount()).isEqualTo(3);
+    }
+
+    @Test
+    void pendingChanges_keepTheirStrongestType() throws Exception {
+        broadcaster.subscribe();
+        assertThat(sending.await(5, TimeUnit.SECONDS)).isTrue();
+
+        broadcaster.onSessionChanged(new SessionChangedEvent(1L, false));
+        broadcaster.onSessionChanged(new SessionChangedEvent(1L, true));
+        when(sessionRepository.findSeatsById(2L)).thenReturn(List.of());
+        broadcaster.onSessionChanged(new SessionChangedEvent(2L, false));
+        release.countDown();
+        awaitSent(3);
+
+        assertThat(messageAt(1).getSessionId()).isEqualTo(1L);
+        assertThat(messageAt(1).getType()).isEqualTo(Type.UPDATED);
+        assertThat(messageAt(2).getType()).isEqualTo(Type.DELETED);
+    }
+
+    @Test
+    void subscribe_failsWhenFull() {
+        broadcaster.subscribe();
+
+        assertThrows(ServiceUnavailableException.class, () -> broadcaster.subscribe());
+        assertThat(broadcaster.getSubscriberCount()).isEqualTo(1);
+    }
+
+    private void awaitSent(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (sent.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(sent).hasSize(count);
+    }
+
+    private SessionChangeMessage messageAt(int index) {
+        return (SessionChangeMessage) sent.get(index);
+    }
+
+    private class RecordingEmitter extends SseEmitter {
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            sending.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            builder.build().forEach(part -> {
+                if (part.getData() instanceof SessionChangeMessage) {
+                    sent.add(part.getData());
+                } else if (part.getData().toString().startsWith(":heartbeat")) {
+                    sent.add("heartbeat");
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SessionSearchIndexTest {
+
+    @Mock
+    private SessionRepository sessionRepository;
+
+    @InjectMocks
+    private SessionSearchIndex searchIndex;
+
+    @Test
+    void tokenize_foldsAccentsAndDropsStopWords() {
+        assertThat(SessionSearchIndex.tokenize("Yoga de l'Été : cœur & Énergie, niveau 2"))
+                .containsExactly("yoga", "ete", "coeur", "energie", "niveau");
+        assertThat(SessionSearchIndex.tokenize("  ")).isEmpty();
+    }
+
+    @Test
+    void search_ranksNameMatchesFirst() {
+        searchIndex.index(1L, "Pilates", "Un cours doux, proche du yoga");
+        searchIndex.index(2L, "Yoga débutant", "Postures de base");
+        searchIndex.index(3L, "Méditation", "Respiration et relaxation");
+
+        assertThat(searchIndex.search("YOGA", 10)).containsExactly(2L, 1L);
+        assertThat(searchIndex.search("debutant yoga", 1)).containsExactly(2L);
+        assertThat(searchIndex.search("méditer", 10)).isEmpty();
+        assertThat(searchIndex.search("le la", 10)).isEmpty();
+    }
+
+    @Test
+    void index_replacesAndRemovesSessions() {
+        searchIndex.index(1L, "Yoga", "Matin");
+        searchIndex.index(1L, "Pilates", "Soir");
+
+        assertThat(searchIndex.search("yoga", 10)).isEmpty();
+        assertThat(searchIndex.search("pilates", 10)).containsExactly(1L);
+
+        searchIndex.remove(1L);
+
+        assertThat(searchIndex.search("pilates", 10)).isEmpty();
+    }
+
+    @Test
+    void index_keepsResultsAcrossCompaction() {
+        for (long id = 0; id < 3000; id++) {
+            searchIndex.index(id, "Session " + id, id % 2 == 0 ? "Yoga" : "Pilates");
+        }
+        for (long id = 0; id < 2000; id++) {
+            searchIndex.remove(id);
+        }
+
+        List<Long> results = searchIndex.search("yoga", 1000);
+
+        assertThat(results).hasSize(500).allMatch(id -> id >= 2000 && id % 2 == 0);
+        assertThat(searchIndex.search("1999", 10)).isEmpty();
+        assertThat(searchIndex.search("2999", 10)).containsExactly(2999L);
+    }
+
+    @Test
+    void onSessionChanged_reindexesCommittedSession() {
+        List<Object[]> row = new ArrayList<>();
+        row.add(new Object[]{1L, "Yoga", "Matin"});
+        when(sessionRepository.findSearchableTextById(1L)).thenReturn(row);
+
+        searchIndex.onSessionChanged(new SessionChangedEvent(1L, false));
+        assertThat(searchIndex.search("yoga", 10)).containsExactly(1L);
+
+        when(sessionRepository.findSearchableTextById(1L)).thenReturn(List.of());
+        searchIndex.onSessionChanged(new SessionChangedEvent(1L, false));
+        assertThat(searchIndex.search("yoga", 10)).isEmpty();
+    }
+
+    @Test
+    void rebuild_replacesIndexWithDatabaseContent() {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{4L, "Stretching", null});
+        when(sessionRepository.findAllSearchableText()).thenReturn(rows);
+        searchIndex.index(1L, "Yoga", "Matin");
+
+        searchIndex.rebuild();
+
+        verify(sessionRepository).findAllSearchableText();
+        assertThat(searchIndex.search("yoga", 10)).isEmpty();
+        assertThat(searchIndex.search("stretching", 10)).containsExactly(4L);
+    }
+
+    @Test
+    void onSessionChanged_ignoresParticipantAndUnidentifiedChanges() {
+        searchIndex.onSessionChanged(new SessionChangedEvent(1L, true));
+        searchIndex.onSessionChanged(new SessionChangedEvent(null, true));
+        searchIndex.onSessionChanged(new SessionChangedEvent(null, false));
+
+        verifyNoInteractions(sessionRepository);
+    }
+}
@@ -0,0 +1,203 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.exception.NotFoundException;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.SessionSeries;
+import com.openclassrooms.starterjwt.models.SessionSeries.Frequency;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.SessionSeriesRepository;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.repository.WaitlistRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class SessionSeriesServiceIntegrationTest {
+
+    @Autowired
+    private SessionSeriesService sessionSeriesService;
+
+    @Autowired
+    private SessionService sessionService;
+
+    @Autowired
+    private SessionSeriesRepository sessionSeriesRepository;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private TeacherRepository teacherRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private WaitlistRepository waitlistRepository;
+
+    @Autowired
+    private SessionSearchIndex sessionSearchIndex;
+
+    private Teacher teacher;
+
+    @BeforeEach
+    void setUp() {
+        teacher = teacherRepository.save(Teacher.builder().firstName("Margot").lastName("Delahaye").build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        sessionRepository.deleteAll();
+        waitlistRepository.deleteAll();
+        sessionSeriesRepository.deleteAll();
+        teacherRepository.delete(teacher);
+    }
+
+    @Test
+    void create_materializesEveryOccurrence() {
+        SessionSeries series = sessionSeriesService.create(weekly(date(2030, 1, 7), date(2030, 12, 31)));
+
+        List<Session> sessions = sessionsOf(series);
+        assertThat(sessions).hasSize(52);
+        assertThat(sessions).allSatisfy(session -> {
+            assertThat(session.getName()).isEqualTo("Weekly flow");
+            assertThat(session.getTeacher().getId()).isEqualTo(teacher.getId());
+            assertThat(session.getCapacity()).isEqualTo(2);
+            assertThat(session.getDate().toInstant().atZone(ZoneId.systemDefault()).getHour()).isEqualTo(18);
+        });
+        assertThat(sessions.get(0).getDate().getTime()).isEqualTo(date(2030, 1, 7).getTime());
+        assertThat(sessions.get(51).getDate().getTime()).isEqualTo(date(2030, 12, 30).getTime());
+    }
+
+    @Test
+    void create_throwsBadRequest_ifRangeIsInvalidOrTooLong() {
+        assertThrows(BadRequestException.class,
+                () -> sessionSeriesService.create(weekly(date(2030, 2, 1), date(2030, 1, 1))));
+
+        SessionSeries daily = weekly(date(2030, 1, 1), date(2040, 1, 1)).setFrequency(Frequency.DAILY);
+        assertThrows(BadRequestException.class, () -> sessionSeriesService.create(daily));
+        assertThat(sessionSeriesRepository.count()).isZero();
+    }
+
+    @Test
+    void updateFrom_changesOnlyFutureOccurrences() {
+        SessionSeries series = sessionSeriesService.create(weekly(date(2030, 1, 7), date(2030, 2, 25)));
+
+        int updated = sessionSeriesService.updateFrom(series.getId(), date(2030, 2, 1),
+                SessionSeries.builder().name("Slow flow").description("Changed").teacher(teacher).capacity(10).build());
+
+        assertThat(updated).isEqualTo(4);
+        assertThat(sessionsOf(series)).extracting(Session::getName).containsExactly(
+                "Weekly flow", "Weekly flow", "Weekly flow", "Weekly flow",
+                "Slow flow", "Slow flow", "Slow flow", "Slow flow");
+        assertThat(sessionSeriesService.getById(series.getId()).getName()).isEqualTo("Slow flow");
+        // Only the edited occurrences are reindexed
+        assertThat(sessionSearchIndex.search("slow", 100)).containsExactlyInAnyOrderElementsOf(
+                sessionsOf(series).subList(4, 8).stream().map(Session::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    void updateFrom_seatsWaitlistedUsers_whenCapacityIsRaised() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            users.add(userRepository.save(User.builder()
+                    .email("series" + i + "@example.com").firstName("Series").lastName("User" + i).password("password").admin(false).build()));
+        }
+        SessionSeries series = sessionSeriesService.create(weekly(date(2030, 1, 7), date(2030, 2, 25)));
+        Session before = sessionsOf(series).get(1);
+        Session after = sessionsOf(series).get(6);
+        for (User user : users) {
+            sessionService.participate(before.getId(), user.getId());
+            sessionService.participate(after.getId(), user.getId());
+        }
+
+        sessionSeriesService.updateFrom(series.getId(), date(2030, 2, 1),
+                SessionSeries.builder().name("Weekly flow").description("Bigger room").teacher(teacher).capacity(3).build());
+
+        assertThat(sessionRepository.findById(after.getId()).orElseThrow().getParticipantCount()).isEqualTo(3);
+        assertThat(sessionRepository.findById(before.getId()).orElseThrow().getParticipantCount()).isEqualTo(2);
+        assertThat(waitlistRepository.findFirstBySessionIdOrderByIdAsc(after.getId())).isEmpty();
+        assertThat(waitlistRepository.findFirstBySessionIdOrderByIdAsc(before.getId()).orElseThrow().getUserId())
+                .isEqualTo(users.get(2).getId());
+
+        sessionRepository.deleteAll();
+        waitlistRepository.deleteAll();
+        userRepository.deleteAll(users);
+    }
+
+    @Test
+    void cancelFrom_deletesFutureOccurrencesWithTheirParticipants() {
+        User user = userRepository.save(User.builder()
+                .email("series@example.com").firstName("Series").lastName("User").password("password").admin(false).build());
+        SessionSeries series = sessionSeriesService.create(weekly(date(2030, 1, 7), date(2030, 2, 25)));
+        List<Session> sessions = sessionsOf(series);
+        sessionService.participate(sessions.get(1).getId(), user.getId());
+        sessionService.participate(sessions.get(6).getId(), user.getId());
+
+        int cancelled = sessionSeriesService.cancelFrom(series.getId(), date(2030, 2, 1));
+
+        assertThat(cancelled).isEqualTo(4);
+        List<Session> remaining = sessionsOf(series);
+        assertThat(remaining).hasSize(4);
+        assertThat(remaining.get(1).getUsers()).extracting(User::getId).containsExactly(user.getId());
+        assertThat(sessionSearchIndex.search("weekly", 100))
+                .contains(remaining.get(0).getId())
+                .doesNotContain(sessions.get(4).getId(), sessions.get(7).getId());
+
+        sessionRepository.deleteAll();
+        userRepository.delete(user);
+    }
+
+    @Test
+    void updateAndCancel_throwNotFound_ifSeriesDoesNotExist() {
+        SessionSeries template = SessionSeries.builder().name("Missing").description("Missing").build();
+
+        assertThrows(NotFoundException.class, () -> sessionSeriesService.updateFrom(0L, new Date(), template));
+        assertThrows(NotFoundException.class, () -> sessionSeriesService.cancelFrom(0L, new Date()));
+        assertThat(sessionSeriesService.getById(0L)).isNull();
+    }
+
+    private List<Session> sessionsOf(SessionSeries series) {
+        return sessionRepository.findAll().stream()
+                .filter(session -> series.getId().equals(session.getSeriesId()))
+                .sorted(Comparator.comparing(Session::getDate))
+                .collect(Collectors.toList());
+    }
+
+    private SessionSeries weekly(Date start, Date end) {
+        return SessionSeries.builder()
+                .name("Weekly flow")
+                .description("Every Monday evening")
+                .teacher(teacher)
+                .capacity(2)
+                .frequency(Frequency.WEEKLY)
+                .interval(1)
+                .startDate(start)
+                .endDate(end)
+                .build();
+    }
+
+    private static Date date(int year, int month, int day) {
+        return Date.from(LocalDateTime.of(year, month, day, 18, 0).atZone(ZoneId.systemDefault()).toInstant());
+    }
+}
@@ -1,19 +1,31 @@
 package com.openclassrooms.starterjwt.services;
 
+import com.openclassrooms.starterjwt.dto.SessionSummary;
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.exception.NotFoundException;
+import com.openclassrooms.starterjwt.exception.PreconditionFailedException;
 import com.openclassrooms.starterjwt.models.Session;
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.repository.SessionRepository;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.repository.WaitlistRepository;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @SpringBootTest
 @ActiveProfiles("test")
@@ -28,6 +40,12 @@ class SessionServiceIntegrationTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private WaitlistRepository waitlistRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     private Session session;
     private User user;
 
@@ -54,6 +72,13 @@ class SessionServiceIntegrationTest {
         session = sessionRepository.save(session);
     }
 
+    @AfterEach
+    void tearDown() {
+        // Drop PARTICIPATE rows so other test classes can delete their users
+        sessionRepository.deleteAll();
+        waitlistRepository.deleteAll();
+    }
+
     @Test
     void create_returnsSavedSession_ifSessionIsValid() {
         Session newSession = Session.builder()
@@ -83,6 +108,23 @@ class SessionServiceIntegrationTest {
         assertThat(sessions).isNotEmpty();
     }
 
+    @Test
+    void findAllSummaries_countsParticipants() {
+        sessionService.participate(session.getId(), user.getId());
+        Session empty = sessionRepository.save(Session.builder()
+                .name("Empty Session")
+                .description("Nobody yet")
+                .date(new Date(session.getDate().getTime() + 60_000))
+                .users(List.of())
+                .build());
+
+        List<SessionSummary> summaries = sessionService.findAllSummaries();
+
+        assertThat(summaries).extracting(SessionSummary::getId).containsExactly(session.getId(), empty.getId());
+        assertThat(summaries).extracting(SessionSummary::getParticipantCount).containsExactly(1L, 0L);
+        assertThat(summaries.get(0).getName()).isEqualTo("Test Session");
+    }
+
     @Test
     void getById_returnsSession_ifExists() {
         Session found = sessionService.getById(session.getId());
@@ -102,10 +144,44 @@ class SessionServiceIntegrationTest {
     void update_returnsUpdatedSession_ifSessionIsValid() {
         session.setName("Updated Name");
 
-        Session updated = sessionService.update(session.getId(), session);
+        Session updated = sessionService.update(session.getId(), session, session.getVersion());
 
         assertThat(updated).isNotNull();
         assertThat(updated.getName()).isEqualTo("Updated Name");
+        assertThat(updated.getVersion()).isEqualTo(session.getVersion() + 1);
+    }
+
+    @Test
+    void update_keepsParticipantsWhoJoinedMeanwhile_andAcceptsTheVersionSeenBefore() {
+        long seen = session.getVersion();
+        sessionService.participate(session.getId(), user.getId());
+        Session edit = Session.builder()
+                .name("Edited")
+                .description("Edited description")
+                .date(session.getDate())
+                .users(List.of())
+                .build();
+
+        Session updated = sessionService.update(session.getId(), edit, seen);
+
+        assertThat(updated.getName()).isEqualTo("Edited");
+        assertThat(sessionRepository.findById(session.getId()).orElseThrow().getUsers())
+                .extracting(User::getId).containsExactly(user.getId());
+        assertThrows(PreconditionFailedException.class, () -> sessionService.update(session.getId(), edit, seen));
+    }
+
+    @Test
+    void participationChanges_changeTheRepresentationButNotTheVersion() {
+        String initial = sessionService.getRepresentationVersion(session.getId());
+
+        sessionService.participate(session.getId(), user.getId());
+        String joined = sessionService.getRepresentationVersion(session.getId());
+        sessionService.noLongerParticipate(session.getId(), user.getId());
+
+        assertThat(joined).isNotEqualTo(initial);
+        assertThat(sessionService.getRepresentationVersion(session.getId())).isNotIn(initial, joined);
+        assertThat(sessionRepository.findById(session.getId()).orElseThrow().getVersion()).isEqualTo(session.getVersion());
+        assertThat(sessionService.getRepresentationVersion(-1L)).isNull();
     }
 
     @Test
@@ -129,5 +205,131 @@ class SessionServiceIntegrationTest {
         assertThat(updated).isNotNull();
         assertThat(updated.getUsers()).doesNotContain(user);
     }
-}
 
+    @Test
+    void participate_keepsErrorSemantics() {
+        sessionService.participate(session.getId(), user.getId());
+
+        assertThrows(BadRequestException.class, () -> sessionService.participate(session.getId(), user.getId()));
+        assertThrows(NotFoundException.class, () -> sessionService.participate(session.getId(), user.getId() + 1000));
+        assertThrows(NotFoundException.class, () -> sessionService.participate(session.getId() + 1000, user.getId()));
+        assertThrows(NotFoundException.class, () -> sessionService.noLongerParticipate(session.getId() + 1000, user.getId()));
+
+        sessionService.noLongerParticipate(session.getId(), user.getId());
+        assertThrows(BadRequestException.class, () -> sessionService.noLongerParticipate(session.getId(), user.getId()));
+    }
+
+    @Test
+    void participate_neverOverbooksAndPromotesFromWaitlist_underConcurrency() throws Exception {
+        Session limited = sessionRepository.save(Session.builder()
+                .name("Limited Session")
+                .description("Five seats")
+                .date(new Date())
+                .capacity(5)
+                .users(List.of())
+                .build());
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            users.add(userRepository.save(User.builder()
+                    .email("seat" + i + "@example.com")
+                    .firstName("Seat")
+                    .lastName("User" + i)
+                    .password("password")
+                    .admin(false)
+                    .build()));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<ParticipationStatus>> results = new ArrayList<>();
+        try {
+            for (User seatUser : users) {
+                results.add(executor.submit(() -> sessionService.participate(limited.getId(), seatUser.getId())));
+            }
+            int participating = 0;
+            for (Future<ParticipationStatus> result : results) {
+                if (result.get() == ParticipationStatus.PARTICIPATING) {
+                    participating++;
+                }
+            }
+            assertThat(participating).isEqualTo(5);
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(sessionRepository.findById(limited.getId()).orElseThrow().getParticipantCount()).isEqualTo(5);
+        assertThat(waitlistRepository.count()).isEqualTo(15);
+
+        Long firstWaitlisted = waitlistRepository.findFirstBySessionIdOrderByIdAsc(limited.getId()).orElseThrow().getUserId();
+        Long leaving = sessionRepository.findById(limited.getId()).orElseThrow().getUsers().get(0).getId();
+        sessionService.noLongerParticipate(limited.getId(), leaving);
+
+        Session after = sessionRepository.findById(limited.getId()).orElseThrow();
+        assertThat(after.getParticipantCount()).isEqualTo(5);
+        assertThat(after.getUsers()).extracting(User::getId).contains(firstWaitlisted).doesNotContain(leaving);
+        assertThat(waitlistRepository.count()).isEqualTo(14);
+    }
+
+    @Test
+    void update_seatsOldestWaitlistEntries_whenCapacityIsRaised() {
+        Session limited = sessionRepository.save(Session.builder()
+                .name("Limited Session")
+                .description("One seat")
+                .date(new Date())
+                .capacity(1)
+                .users(List.of())
+                .build());
+        List<User> users = seatUsers(4);
+        for (User seatUser : users) {
+            sessionService.participate(limited.getId(), seatUser.getId());
+        }
+        assertThat(waitlistRepository.count()).isEqualTo(3);
+
+        Session changes = Session.builder()
+                .name(limited.getName())
+                .description(limited.getDescription())
+                .date(limited.getDate())
+                .capacity(3)
+                .build();
+        Session result = sessionService.update(limited.getId(), changes, limited.getVersion());
+
+        assertThat(result.getParticipantCount()).isEqualTo(3);
+        assertThat(result.getUsers()).extracting(User::getId)
+                .containsExactlyInAnyOrder(users.get(0).getId(), users.get(1).getId(), users.get(2).getId());
+        assertThat(waitlistRepository.findFirstBySessionIdOrderByIdAsc(limited.getId()).orElseThrow().getUserId())
+                .isEqualTo(users.get(3).getId());
+        assertThat(waitlistRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void participate_joinsWaitlist_whileOthersAreWaiting() {
+        Session limited = sessionRepository.save(Session.builder()
+                .name("Limited Session")
+                .description("One seat")
+                .date(new Date())
+                .capacity(1)
+                .users(List.of())
+                .build());
+        List<User> users = seatUsers(3);
+        sessionService.participate(limited.getId(), users.get(0).getId());
+        sessionService.participate(limited.getId(), users.get(1).getId());
+        // A seat freed without going through the service, e.g. by an edit made directly in the database
+        jdbcTemplate.update("UPDATE SESSIONS SET capacity = 5 WHERE id = ?", limited.getId());
+
+        assertThat(sessionService.participate(limited.getId(), users.get(2).getId())).isEqualTo(ParticipationStatus.WAITLISTED);
+        assertThat(sessionRepository.findById(limited.getId()).orElseThrow().getParticipantCount()).isEqualTo(1);
+    }
+
+    private List<User> seatUsers(int count) {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            users.add(userRepository.save(User.builder()
+                    .email("waiting" + i + "@example.com")
+                    .firstName("Waiting")
+                    .lastName("User" + i)
+                    .password("password")
+                    .admin(false)
+                    .build()));
+        }
+        return users;
+    }
+}
@@ -2,16 +2,24 @@ package com.openclassrooms.starterjwt.services;
 
 import com.openclassrooms.starterjwt.exception.BadRequestException;
 import com.openclassrooms.starterjwt.exception.NotFoundException;
+import com.openclassrooms.starterjwt.exception.PreconditionFailedException;
 import com.openclassrooms.starterjwt.models.Session;
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionFilter;
 import com.openclassrooms.starterjwt.repository.SessionRepository;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.repository.WaitlistRepository;
+import com.openclassrooms.starterjwt.models.WaitlistEntry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 
 import java.util.*;
 
@@ -22,12 +30,23 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class SessionServiceTest {
 
+    private static final SessionFilter NO_FILTER = SessionFilter.builder().build();
+
     @Mock
     private SessionRepository sessionRepository;
 
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private WaitlistRepository waitlistRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private SessionSearchIndex sessionSearchIndex;
+
     @InjectMocks
     private SessionService sessionService;
 
@@ -71,12 +90,22 @@ class SessionServiceTest {
         verify(sessionRepository).save(mockSession);
     }
 
+    @Test
+    void create_throwsBadRequest_ifTeacherDoesNotExist() {
+        when(sessionRepository.save(mockSession)).thenReturn(mockSession);
+        doThrow(new DataIntegrityViolationException("teacher_id")).when(sessionRepository).flush();
+
+        assertThrows(BadRequestException.class, () -> sessionService.create(mockSession));
+        verify(sessionRepository, never()).syncParticipantCount(any());
+    }
+
     @Test
     void delete_deletesSession_ifSessionExists() {
         sessionService.delete(1L);
 
         // Verify that deleteById is called once
         verify(sessionRepository).deleteById(1L);
+        verify(waitlistRepository).deleteBySessionId(1L);
     }
 
     @Test
@@ -89,6 +118,78 @@ class SessionServiceTest {
         assertThat(result.get(0).getName()).isEqualTo("Test Session");
     }
 
+    @Test
+    void findPage_returnsSessionsInIdOrderWithCursor_ifMoreSessionsFollow() {
+        Session second = Session.builder().id(2L).date(new Date(2_000)).build();
+        Session first = Session.builder().id(1L).date(new Date(1_000)).build();
+        when(sessionRepository.findPageIds(NO_FILTER, null, null, 3)).thenReturn(List.of(1L, 2L, 3L));
+        when(sessionRepository.findAllWithUsersByIdIn(List.of(1L, 2L)))
+                .thenReturn(new ArrayList<>(List.of(second, first)));
+
+        SessionPage page = sessionService.findPage(null, 2, false, NO_FILTER);
+
+        assertThat(page.getSessions()).containsExactly(first, second);
+        assertThat(page.getNextCursor()).isNotNull();
+
+        when(sessionRepository.findPageIds(NO_FILTER, new Date(2_000), 2L, 3)).thenReturn(List.of(3L));
+        when(sessionRepository.findAllWithUsersByIdIn(List.of(3L)))
+                .thenReturn(new ArrayList<>(List.of(Session.builder().id(3L).date(new Date(3_000)).build())));
+
+        SessionPage next = sessionService.findPage(page.getNextCursor(), 2, false, NO_FILTER);
+
+        assertThat(next.getSessions()).extracting(Session::getId).containsExactly(3L);
+        assertThat(next.getNextCursor()).isNull();
+    }
+
+    @Test
+    void findPage_startsFromNow_ifUpcomingOnly() {
+        Date later = new Date(System.currentTimeMillis() + 3_600_000);
+        SessionFilter fromLater = SessionFilter.builder().from(later).teacherId(3L).build();
+        when(sessionRepository.findPageIds(any(SessionFilter.class), isNull(), isNull(), eq(21))).thenReturn(List.of());
+
+        SessionPage page = sessionService.findPage(null, 20, true, NO_FILTER);
+        sessionService.findPage(null, 20, true, fromLater);
+
+        assertThat(page.getSessions()).isEmpty();
+        assertThat(page.getNextCursor()).isNull();
+        ArgumentCaptor<SessionFilter> filters = ArgumentCaptor.forClass(SessionFilter.class);
+        verify(sessionRepository, times(2)).findPageIds(filters.capture(), isNull(), isNull(), eq(21));
+        assertThat(filters.getAllValues().get(0).getFrom()).isNotNull();
+        assertThat(filters.getAllValues().get(1)).isEqualTo(fromLater);
+    }
+
+    @Test
+    void search_returnsSessionsInRankOrder() {
+        Session first = Session.builder().id(7L).build();
+        Session second = Session.builder().id(3L).build();
+        when(sessionSearchIndex.search("yoga", 100)).thenReturn(List.of(7L, 3L));
+        when(sessionRepository.findAllWithUsersByIdIn(List.of(7L, 3L)))
+                .thenReturn(new ArrayList<>(List.of(second, first)));
+
+        assertThat(sessionService.search("yoga", 500)).containsExactly(first, second);
+
+        when(sessionSearchIndex.search("pilates", 20)).thenReturn(List.of());
+
+        assertThat(sessionService.search("pilates", 20)).isEmpty();
+        verify(sessionRepository, times(1)).findAllWithUsersByIdIn(anyList());
+    }
+
+    @Test
+    void findPage_capsPageSize() {
+        when(sessionRepository.findPageIds(NO_FILTER, null, null, SessionService.MAX_PAGE_SIZE + 1)).thenReturn(List.of());
+
+        sessionService.findPage(null, 10_000, false, NO_FILTER);
+
+        verify(sessionRepository).findPageIds(NO_FILTER, null, null, SessionService.MAX_PAGE_SIZE + 1);
+    }
+
+    @Test
+    void findPage_throwsBadRequest_ifCursorOrSizeIsInvalid() {
+        assertThrows(BadRequestException.class, () -> sessionService.findPage("not a cursor", 20, false, NO_FILTER));
+        assertThrows(BadRequestException.class, () -> sessionService.findPage("bm9wZQ", 20, false, NO_FILTER));
+        assertThrows(BadRequestException.class, () -> sessionService.findPage(null, 0, false, NO_FILTER));
+    }
+
     @Test
     void getById_returnsSession_ifIdExists() {
         when(sessionRepository.findById(1L)).thenReturn(Optional.of(mockSession));
@@ -109,90 +210,203 @@ class SessionServiceTest {
     }
 
     @Test
-    void update_setsIdAndSaves_ifSessionIsValid() {
-        Session updatedSession = Session.builder()
+    void update_appliesEditedFields_andKeepsParticipants() {
+        mockSession.setVersion(3L);
+        mockSession.setUsers(new ArrayList<>(List.of(mockUser)));
+        Session changes = Session.builder()
                 .name("Updated Name")
                 .description("Updated Description")
-                .date(new Date())
+                .date(new Date(0))
+                .capacity(12)
+                .users(List.of())
                 .build();
+        when(sessionRepository.findById(1L)).thenReturn(Optional.of(mockSession));
 
-        // Mock the repository's save method to return the updated session
-        when(sessionRepository.save(any(Session.class))).thenReturn(updatedSession);
+        Session result = sessionService.update(1L, changes, 3L);
 
-        // Call the update method
-        Session result = sessionService.update(1L, updatedSession);
+        assertThat(result).isSameAs(mockSession);
+        assertThat(result.getName()).isEqualTo("Updated Name");
+        assertThat(result.getDescription()).isEqualTo("Updated Description");
+        assertThat(result.getDate()).isEqualTo(new Date(0));
+        assertThat(result.getCapacity()).isEqualTo(12);
+        assertThat(result.getUsers()).containsExactly(mockUser);
+        verify(sessionRepository).flush();
+        verify(sessionRepository, never()).save(any());
+    }
 
-        // Ensure the updated session has the correct ID
-        assertThat(result.getId()).isEqualTo(1L);
+    @Test
+    void update_seatsWaitlistedUsers_ifCapacityIsRaised() {
+        mockSession.setCapacity(1);
+        when(sessionRepository.findById(1L)).thenReturn(Optional.of(mockSession));
+        when(waitlistRepository.findFirstBySessionIdOrderByIdAsc(1L))
+                .thenReturn(Optional.of(WaitlistEntry.builder().id(5L).sessionId(1L).userId(2L).build()))
+                .thenReturn(Optional.empty());
+        when(sessionRepository.reserveSeat(1L)).thenReturn(1);
 
-        // Verify that save was called once with the updated session
-        verify(sessionRepository).save(updatedSession);
+        sessionService.update(1L, Session.builder().name("Bigger room").capacity(2).build(), null);
+
+        verify(waitlistRepository).removeFromWaitlist(1L, 2L);
+        verify(sessionRepository).addParticipant(1L, 2L);
+        verify(sessionRepository).refresh(mockSession);
     }
 
     @Test
-    void participate_throwsNotFound_ifSessionOrUserMissing() {
+    void update_throwsPreconditionFailed_ifVersionIsOutdated() {
+        mockSession.setVersion(4L);
+        when(sessionRepository.findById(1L)).thenReturn(Optional.of(mockSession));
+
+        assertThrows(PreconditionFailedException.class,
+                () -> sessionService.update(1L, Session.builder().name("Stale").build(), 3L));
+        assertThat(mockSession.getName()).isEqualTo("Test Session");
+        verify(sessionRepository, never()).flush();
+    }
+
+    @Test
+    void update_throwsPreconditionFailed_ifConcurrentChangeCommitsFirst() {
+        when(sessionRepository.findById(1L)).thenReturn(Optional.of(mockSession));
+        doThrow(new ObjectOptimisticLockingFailureException(Session.class, 1L)).when(sessionRepository).flush();
+
+        assertThrows(PreconditionFailedException.class,
+                () -> sessionService.update(1L, Session.builder().name("Late").build(), 0L));
+    }
+
+    @Test
+    void update_acceptsAnyVersion_ifNoneExpected() {
+        mockSession.setVersion(9L);
+        when(sessionRepository.findById(1L)).thenReturn(Optional.of(mockSession));
+
+        Session result = sessionService.update(1L, Session.builder().name("Forced").build(), null);
+
+        assertThat(result.getName()).isEqualTo("Forced");
+    }
+
+    @Test
+    void update_throwsNotFound_ifSessionMissing() {
         when(sessionRepository.findById(1L)).thenReturn(Optional.empty());
-        assertThrows(NotFoundException.class, () -> sessionService.participate(1L, 1L));
 
+        assertThrows(NotFoundException.class, () -> sessionService.update(1L, new Session(), 0L));
+    }
+
+    @Test
+    void update_throwsBadRequest_ifTeacherUnknown() {
         when(sessionRepository.findById(1L)).thenReturn(Optional.of(mockSession));
-        when(userRepository.findById(1L)).thenReturn(Optional.empty());
+        doThrow(new DataIntegrityViolationException("fk")).when(sessionRepository).flush();
+
+        assertThrows(BadRequestException.class, () -> sessionService.update(1L, new Session(), 0L));
+    }
+
+    @Test
+    void getRepresentationVersion_combinesEditAndParticipantsVersions() {
+        when(sessionRepository.findVersionsById(1L)).thenReturn(Collections.singletonList(new Object[] { 5L, 2L }));
+
+        assertThat(sessionService.getRepresentationVersion(1L)).isEqualTo("5-2");
+        assertThat(sessionService.getRepresentationVersion(2L)).isNull();
+    }
+
+    @Test
+    void participate_throwsNotFound_ifSessionOrUserMissing() {
+        when(sessionRepository.reserveSeatIfNoneWaiting(1L)).thenReturn(0);
+        when(sessionRepository.lockById(1L)).thenReturn(null);
+        assertThrows(NotFoundException.class, () -> sessionService.participate(1L, 1L));
+
+        when(sessionRepository.reserveSeatIfNoneWaiting(1L)).thenReturn(1);
+        when(sessionRepository.addParticipant(1L, 1L)).thenReturn(0);
+        when(userRepository.existsById(1L)).thenReturn(false);
         assertThrows(NotFoundException.class, () -> sessionService.participate(1L, 1L));
     }
 
     @Test
     void participate_throwsBadRequest_ifAlreadyParticipating() {
-        mockSession.getUsers().add(mockUser);
-        when(sessionRepository.findById(1L)).thenReturn(Optional.of(mockSession));
-        when(userRepository.findById(1L)).thenReturn(Optional.of(mockUser));
+        when(sessionRepository.reserveSeatIfNoneWaiting(1L)).thenReturn(1);
+        when(sessionRepository.addParticipant(1L, 1L)).thenReturn(0);
+        when(userRepository.existsById(1L)).thenReturn(true);
+
+        assertThrows(BadRequestException.class, () -> sessionService.participate(1L, 1L));
+    }
+
+    @Test
+    void participate_throwsBadRequest_ifConcurrentInsertWins() {
+        when(sessionRepository.reserveSeatIfNoneWaiting(1L)).thenReturn(1);
+        when(sessionRepository.addParticipant(1L, 1L)).thenThrow(new DataIntegrityViolationException("duplicate"));
 
         assertThrows(BadRequestException.class, () -> sessionService.participate(1L, 1L));
     }
 
+    @Test
+    void participate_takesSeat_ifAvailable() {
+        when(sessionRepository.reserveSeatIfNoneWaiting(1L)).thenReturn(1);
+        when(sessionRepository.addParticipant(1L, 1L)).thenReturn(1);
+
+        assertThat(sessionService.participate(1L, 1L)).isEqualTo(ParticipationStatus.PARTICIPATING);
+
+        verify(sessionRepository, never()).findById(any());
+        verify(sessionRepository, never()).save(any());
+        verifyNoInteractions(waitlistRepository);
+        verify(eventPublisher).publishEvent(any(SessionChangedEvent.class));
+        verify(eventPublisher).publishEvent(any(ParticipationChangedEvent.class));
+    }
 
     @Test
-    void participate_addsUserAndSaves_ifValid() {
-        when(sessionRepository.findById(1L)).thenReturn(Optional.of(mockSession));
-        when(userRepository.findById(1L)).thenReturn(Optional.of(mockUser));
+    void participate_joinsWaitlist_ifSessionIsFull() {
+        when(sessionRepository.reserveSeatIfNoneWaiting(1L)).thenReturn(0);
+        when(sessionRepository.lockById(1L)).thenReturn(1);
+        when(waitlistRepository.addToWaitlist(1L, 1L)).thenReturn(1);
 
-        sessionService.participate(1L, 1L);
+        assertThat(sessionService.participate(1L, 1L)).isEqualTo(ParticipationStatus.WAITLISTED);
 
-        assertThat(mockSession.getUsers()).contains(mockUser);
-        verify(sessionRepository).save(mockSession);
+        verify(sessionRepository, never()).addParticipant(any(), any());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void participate_throwsBadRequest_ifAlreadyWaitlisted() {
+        when(sessionRepository.reserveSeatIfNoneWaiting(1L)).thenReturn(0);
+        when(sessionRepository.lockById(1L)).thenReturn(1);
+        when(waitlistRepository.addToWaitlist(1L, 1L)).thenReturn(0);
+        when(userRepository.existsById(1L)).thenReturn(true);
+
+        assertThrows(BadRequestException.class, () -> sessionService.participate(1L, 1L));
     }
 
     @Test
     void noLongerParticipate_throwsNotFound_ifSessionMissing() {
-        when(sessionRepository.findById(1L)).thenReturn(Optional.empty());
+        when(sessionRepository.removeParticipant(1L, 1L)).thenReturn(0);
+        when(sessionRepository.lockById(1L)).thenReturn(null);
         assertThrows(NotFoundException.class, () -> sessionService.noLongerParticipate(1L, 1L));
     }
 
     @Test
     void noLongerParticipate_throwsBadRequest_ifUserNotParticipating() {
-        when(sessionRepository.findById(1L)).thenReturn(Optional.of(mockSession));
+        when(sessionRepository.removeParticipant(1L, 1L)).thenReturn(0);
+        when(sessionRepository.lockById(1L)).thenReturn(1);
+        when(waitlistRepository.removeFromWaitlist(1L, 1L)).thenReturn(0);
         assertThrows(BadRequestException.class, () -> sessionService.noLongerParticipate(1L, 1L));
     }
 
     @Test
-    void noLongerParticipate_removesUserAndSaves_ifParticipating() {
-        User otherUser = User.builder()
-                .id(2L)
-                .email("other@example.com")
-                .firstName("Jane")
-                .lastName("Smith")
-                .password("pass")
-                .admin(false)
-                .build();
-
-        mockSession.setUsers(new ArrayList<>(List.of(mockUser, otherUser)));
-        when(sessionRepository.findById(1L)).thenReturn(Optional.of(mockSession));
+    void noLongerParticipate_leavesWaitlist_ifWaitlisted() {
+        when(sessionRepository.removeParticipant(1L, 1L)).thenReturn(0);
+        when(sessionRepository.lockById(1L)).thenReturn(1);
+        when(waitlistRepository.removeFromWaitlist(1L, 1L)).thenReturn(1);
 
         sessionService.noLongerParticipate(1L, 1L);
 
-        assertThat(mockSession.getUsers()).containsExactly(otherUser);
-        verify(sessionRepository).save(mockSession);
+        verify(sessionRepository, never()).releaseSeat(any());
     }
 
+    @Test
+    void noLongerParticipate_promotesOldestWaitlistEntry_ifParticipating() {
+        when(sessionRepository.removeParticipant(1L, 1L)).thenReturn(1);
+        when(waitlistRepository.findFirstBySessionIdOrderByIdAsc(1L))
+                .thenReturn(Optional.of(WaitlistEntry.builder().id(5L).sessionId(1L).userId(2L).build()))
+                .thenReturn(Optional.empty());
+        when(sessionRepository.reserveSeat(1L)).thenReturn(1);
 
+        sessionService.noLongerParticipate(1L, 1L);
 
-
+        verify(sessionRepository).releaseSeat(1L);
+        verify(waitlistRepository).removeFromWaitlist(1L, 2L);
+        verify(sessionRepository).addParticipant(1L, 2L);
+        verify(sessionRepository, never()).save(any());
+    }
 }
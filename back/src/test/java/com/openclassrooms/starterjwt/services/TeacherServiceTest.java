@@ -9,8 +9,10 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
@@ -37,6 +39,7 @@ class TeacherServiceTest {
 
     @Test
     void findAll_returnsTeacherList_ifTeachersExist() {
+        when(teacherRepository.findFingerprint()).thenReturn(fingerprint(1, null));
         when(teacherRepository.findAll()).thenReturn(List.of(mockTeacher));
 
         List<Teacher> result = teacherService.findAll();
@@ -47,7 +50,8 @@ class TeacherServiceTest {
 
     @Test
     void findById_returnsTeacher_ifIdExists() {
-        when(teacherRepository.findById(1L)).thenReturn(Optional.of(mockTeacher));
+        when(teacherRepository.findFingerprint()).thenReturn(fingerprint(1, null));
+        when(teacherRepository.findAll()).thenReturn(List.of(mockTeacher));
 
         Teacher result = teacherService.findById(1L);
 
@@ -58,10 +62,50 @@ class TeacherServiceTest {
 
     @Test
     void findById_returnsNull_ifIdDoesNotExist() {
-        when(teacherRepository.findById(2L)).thenReturn(Optional.empty());
+        when(teacherRepository.findFingerprint()).thenReturn(fingerprint(1, null));
+        when(teacherRepository.findAll()).thenReturn(List.of(mockTeacher));
 
         Teacher result = teacherService.findById(2L);
 
         assertThat(result).isNull();
     }
+
+    @Test
+    void findById_servesFromSnapshot_untilTheFingerprintChanges() {
+        LocalDateTime updatedAt = LocalDateTime.of(2024, 1, 1, 10, 0);
+        when(teacherRepository.findFingerprint())
+                .thenReturn(fingerprint(1, updatedAt))
+                .thenReturn(fingerprint(1, updatedAt))
+                .thenReturn(fingerprint(2, updatedAt));
+        when(teacherRepository.findAll()).thenReturn(List.of(mockTeacher));
+
+        teacherService.findById(1L);
+        teacherService.findById(1L);
+        teacherService.refresh();
+        String version = teacherService.getVersion();
+        teacherService.refresh();
+
+        verify(teacherRepository, times(2)).findAll();
+        verify(teacherRepository, never()).findById(any());
+        assertThat(version).isEqualTo("1-" + Timestamp.valueOf(updatedAt).getTime());
+        assertThat(teacherService.getVersion()).isEqualTo("2-" + Timestamp.valueOf(updatedAt).getTime());
+    }
+
+    @Test
+    void onTeacherChanged_reloadsTheSnapshot() {
+        when(teacherRepository.findFingerprint()).thenReturn(List.of());
+        when(teacherRepository.findAll()).thenReturn(List.of()).thenReturn(List.of(mockTeacher));
+
+        assertThat(teacherService.findAll()).isEmpty();
+        teacherService.onTeacherChanged(new TeacherChangedEvent(1L));
+
+        assertThat(teacherService.findAll()).containsExactly(mockTeacher);
+        assertThat(teacherService.getVersion()).isEqualTo("0-0");
+    }
+
+    private static List<Object[]> fingerprint(long count, LocalDateTime lastUpdate) {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[] { count, lastUpdate });
+        return rows;
+    }
 }
@@ -55,7 +55,7 @@ class UserServiceIntegrationTest {
     @Test
     void delete_removesUser_ifIdExists() {
         // Act
-        userService.delete(testUser.getId());
+        userService.delete(testUser);
 
         // Assert
         User deleted = userService.findById(testUser.getId());
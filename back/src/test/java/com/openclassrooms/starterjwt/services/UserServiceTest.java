@@ -2,6 +2,8 @@ package com.openclassrooms.starterjwt.services;
 
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.security.jwt.TokenRevocationStore;
+import com.openclassrooms.starterjwt.security.services.UserDetailsCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -20,6 +22,12 @@ class UserServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private UserDetailsCache userDetailsCache;
+
+    @Mock
+    private TokenRevocationStore tokenRevocationStore;
+
     @InjectMocks
     private UserService userService;
 
@@ -41,9 +49,11 @@ class UserServiceTest {
     void delete_deletesUser_ifUserExists() {
         doNothing().when(userRepository).deleteById(1L);
 
-        userService.delete(1L);
+        userService.delete(mockUser);
 
         verify(userRepository).deleteById(1L);
+        verify(userDetailsCache).evict("test@example.com");
+        verify(tokenRevocationStore).revokeUser(1L);
     }
 
     @Test
@@ -0,0 +1,186 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.dto.SessionSummary;
+import com.openclassrooms.starterjwt.dto.SessionSummaryPage;
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.exception.NotFoundException;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.payload.request.EnrollmentRequest;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.repository.WaitlistRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class UserSessionServiceIntegrationTest {
+
+    private static final long DAY = 86_400_000L;
+
+    @Autowired
+    private UserSessionService userSessionService;
+
+    @Autowired
+    private SessionService sessionService;
+
+    @Autowired
+    private EnrollmentService enrollmentService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private WaitlistRepository waitlistRepository;
+
+    private User alice;
+    private User bob;
+    private Session lastWeek;
+    private Session yesterday;
+    private Session tomorrow;
+    private Session nextWeek;
+    private Session later;
+
+    @BeforeEach
+    void setUp() {
+        sessionRepository.deleteAll();
+        waitlistRepository.deleteAll();
+        userRepository.deleteAll();
+
+        alice = userRepository.save(user("alice"));
+        bob = userRepository.save(user("bob"));
+        long now = System.currentTimeMillis();
+        lastWeek = session("Last week", now - 7 * DAY, null);
+        yesterday = session("Yesterday", now - DAY, null);
+        tomorrow = session("Tomorrow", now + DAY, 1);
+        nextWeek = session("Next week", now + 7 * DAY, null);
+        later = session("Later", now + 30 * DAY, null);
+        for (Session session : List.of(lastWeek, yesterday, tomorrow, nextWeek)) {
+            sessionService.participate(session.getId(), alice.getId());
+        }
+        sessionService.participate(later.getId(), bob.getId());
+    }
+
+    @AfterEach
+    void tearDown() {
+        sessionRepository.deleteAll();
+        waitlistRepository.deleteAll();
+    }
+
+    @Test
+    void findPage_walksUpcomingAndPastSessionsByCursor() {
+        SessionSummaryPage upcoming = userSessionService.findPage(alice.getId(), true, null, 1);
+
+        assertThat(ids(upcoming)).containsExactly(tomorrow.getId());
+        assertThat(upcoming.getSessions().get(0).getParticipantCount()).isEqualTo(1L);
+        assertThat(upcoming.getNextCursor()).isNotNull();
+
+        SessionSummaryPage rest = userSessionService.findPage(alice.getId(), true, upcoming.getNextCursor(), 5);
+
+        assertThat(ids(rest)).containsExactly(nextWeek.getId());
+        assertThat(rest.getNextCursor()).isNull();
+
+        SessionSummaryPage past = userSessionService.findPage(alice.getId(), false, null, 1);
+        SessionSummaryPage older = userSessionService.findPage(alice.getId(), false, past.getNextCursor(), 1);
+
+        assertThat(ids(past)).containsExactly(yesterday.getId());
+        assertThat(ids(older)).containsExactly(lastWeek.getId());
+        assertThat(older.getNextCursor()).isNull();
+    }
+
+    @Test
+    void findPage_followsCommittedParticipationChanges() {
+        assertThat(ids(userSessionService.findPage(bob.getId(), true, null, 10))).containsExactly(later.getId());
+
+        sessionService.participate(nextWeek.getId(), bob.getId());
+        assertThat(sessionService.participate(tomorrow.getId(), bob.getId())).isEqualTo(ParticipationStatus.WAITLISTED);
+
+        assertThat(ids(userSessionService.findPage(bob.getId(), true, null, 10)))
+                .containsExactly(nextWeek.getId(), later.getId());
+
+        // Alice leaves, so Bob is promoted from the waitlist
+        sessionService.noLongerParticipate(tomorrow.getId(), alice.getId());
+
+        assertThat(ids(userSessionService.findPage(bob.getId(), true, null, 10)))
+                .containsExactly(tomorrow.getId(), nextWeek.getId(), later.getId());
+        assertThat(ids(userSessionService.findPage(alice.getId(), true, null, 10)))
+                .containsExactly(nextWeek.getId());
+
+        sessionService.delete(nextWeek.getId());
+
+        assertThat(ids(userSessionService.findPage(bob.getId(), true, null, 10)))
+                .containsExactly(tomorrow.getId(), later.getId());
+    }
+
+    @Test
+    void findPage_reloadsOnlyTheAttendeesOfAnEditedSession() {
+        userSessionService.findPage(alice.getId(), true, null, 10);
+        userSessionService.findPage(bob.getId(), true, null, 10);
+        double misses = misses();
+
+        // Bob's only session moves ahead of the ones Alice attends
+        Session changes = Session.builder().name("Sooner").description("Sooner")
+                .date(new Date(System.currentTimeMillis() + DAY / 2)).build();
+        sessionService.update(later.getId(), changes, null);
+        userSessionService.findPage(alice.getId(), true, null, 10);
+        SessionSummaryPage bobs = userSessionService.findPage(bob.getId(), true, null, 10);
+
+        assertThat(misses()).isEqualTo(misses + 1);
+        assertThat(bobs.getSessions()).extracting(SessionSummary::getName).containsExactly("Sooner");
+
+        enrollmentService.enroll(List.of(new EnrollmentRequest.Item(nextWeek.getId(), bob.getId())));
+
+        assertThat(ids(userSessionService.findPage(bob.getId(), true, null, 10)))
+                .containsExactly(later.getId(), nextWeek.getId());
+        assertThat(misses()).isEqualTo(misses + 2);
+    }
+
+    @Test
+    void findPage_rejectsUnknownUsersAndBadInput() {
+        assertThrows(NotFoundException.class, () -> userSessionService.findPage(bob.getId() + 1000, true, null, 10));
+        assertThrows(BadRequestException.class, () -> userSessionService.findPage(alice.getId(), true, null, 0));
+        assertThrows(BadRequestException.class, () -> userSessionService.findPage(alice.getId(), true, "not a cursor", 10));
+    }
+
+    private double misses() {
+        return meterRegistry.get("cache.gets").tag("cache", "userSessions").tag("result", "miss").functionCounter().count();
+    }
+
+    private Session session(String name, long date, Integer capacity) {
+        return sessionRepository.save(Session.builder()
+                .name(name).description(name).date(new Date(date)).capacity(capacity).users(List.of()).build());
+    }
+
+    private static List<Long> ids(SessionSummaryPage page) {
+        return page.getSessions().stream().map(SessionSummary::getId).collect(Collectors.toList());
+    }
+
+    private static User user(String name) {
+        return User.builder()
+                .email(name + "@example.com")
+                .firstName(name)
+                .lastName("Member")
+                .password("password")
+                .admin(false)
+                .build();
+    }
+}
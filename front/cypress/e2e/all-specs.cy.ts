@@ -104,7 +104,7 @@ describe('Login spec', () => {
     cy.intercept(
       {
         method: 'GET',
-        url: '/api/session',
+        url: '/api/session?unpaged=true',
       },
       []).as('session') // Creates an alias for the intercepted call. Refer to request in tests as @session
 
@@ -220,7 +220,7 @@ describe('End-to-end admin spec', () => {
       }
     }).as('putSession');
 
-    cy.intercept({ method: 'GET', url: '/api/session' }, []).as('session');
+    cy.intercept({ method: 'GET', url: '/api/session?unpaged=true' }, []).as('session');
 
     const sessionMock = {
       id: 123,
@@ -235,7 +235,7 @@ describe('End-to-end admin spec', () => {
 
     const teacherMock = { id: 1, firstName: 'John', lastName: 'Doe' };
 
-    cy.intercept('GET', '/api/session', { statusCode: 200, body: [sessionMock] }).as('getSessions');
+    cy.intercept('GET', '/api/session?unpaged=true', { statusCode: 200, body: [sessionMock] }).as('getSessions');
     cy.intercept('GET', `/api/session/${sessionMock.id}`, { statusCode: 200, body: sessionMock }).as('getSessionDetail');
     cy.intercept('GET', `/api/teacher/${teacherMock.id}`, { statusCode: 200, body: teacherMock }).as('getTeacherDetail');
 
@@ -341,7 +341,7 @@ describe('End-to-end admin spec', () => {
 
   it('deletes a session', () => {
     cy.intercept('DELETE', '/api/session/123', { statusCode: 204 }).as('deleteSession');
-    cy.intercept('GET', '/api/session', { statusCode: 200, body: [] }).as('getSessionsAfterDelete');
+    cy.intercept('GET', '/api/session?unpaged=true', { statusCode: 200, body: [] }).as('getSessionsAfterDelete');
 
     cy.contains('mat-card', 'My Test Session').contains('button', 'Detail').click();
     cy.url().should('include', '/sessions/detail/123');
@@ -472,7 +472,7 @@ describe('End-to-end non-admin user spec', () => {
       }
     }).as('putSession');
 
-    cy.intercept({ method: 'GET', url: '/api/session' }, []).as('session');
+    cy.intercept({ method: 'GET', url: '/api/session?unpaged=true' }, []).as('session');
 
     const sessionMock = {
       id: 123,
@@ -487,7 +487,7 @@ describe('End-to-end non-admin user spec', () => {
 
     const teacherMock = { id: 1, firstName: 'John', lastName: 'Doe' };
 
-    cy.intercept('GET', '/api/session', { statusCode: 200, body: [sessionMock] }).as('getSessions');
+    cy.intercept('GET', '/api/session?unpaged=true', { statusCode: 200, body: [sessionMock] }).as('getSessions');
     cy.intercept('GET', `/api/session/${sessionMock.id}`, { statusCode: 200, body: sessionMock }).as('getSessionDetail');
     cy.intercept('GET', `/api/teacher/${teacherMock.id}`, { statusCode: 200, body: teacherMock }).as('getTeacherDetail');
 
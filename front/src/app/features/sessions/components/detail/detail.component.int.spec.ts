@@ -1,7 +1,7 @@
 import { ComponentFixture, TestBed } from '@angular/core/testing';
 import { DetailComponent } from './detail.component';
 import { ActivatedRoute, Router } from '@angular/router';
-import { of } from 'rxjs';
+import { NEVER, of } from 'rxjs';
 
 import { MatSnackBarModule, MatSnackBar } from '@angular/material/snack-bar';
 import { MatCardModule } from '@angular/material/card';
@@ -51,7 +51,8 @@ describe('DetailComponent Integration Tests', () => {
       detail: jest.fn().mockReturnValue(of(session)),
       delete: jest.fn().mockReturnValue(of(undefined)),
       participate: jest.fn().mockReturnValue(of(undefined)),
-      unParticipate: jest.fn().mockReturnValue(of(undefined))
+      unParticipate: jest.fn().mockReturnValue(of(undefined)),
+      changes: jest.fn().mockReturnValue(NEVER)
     } as unknown as jest.Mocked<SessionApiService>;
 
     mockTeacherService = {
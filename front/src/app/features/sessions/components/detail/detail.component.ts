@@ -1,11 +1,14 @@
-import { Component, OnInit } from '@angular/core';
+import { Component, OnDestroy, OnInit } from '@angular/core';
 import { FormBuilder } from '@angular/forms';
 import { MatSnackBar } from '@angular/material/snack-bar';
 import { ActivatedRoute, Router } from '@angular/router';
+import { Subscription } from 'rxjs';
+import { filter } from 'rxjs/operators';
 import { Teacher } from '../../../../interfaces/teacher.interface';
 import { SessionService } from '../../../../services/session.service';
 import { TeacherService } from '../../../../services/teacher.service';
 import { Session } from '../../interfaces/session.interface';
+import { SessionChange } from '../../interfaces/sessionChange.interface';
 import { SessionApiService } from '../../services/session-api.service';
 
 @Component({
@@ -13,7 +16,7 @@ import { SessionApiService } from '../../services/session-api.service';
   templateUrl: './detail.component.html',
   styleUrls: ['./detail.component.scss']
 })
-export class DetailComponent implements OnInit {
+export class DetailComponent implements OnInit, OnDestroy {
   public session: Session | undefined;
   public teacher: Teacher | undefined;
 
@@ -23,6 +26,8 @@ export class DetailComponent implements OnInit {
   public sessionId: string;
   public userId: string;
 
+  private changes: Subscription | undefined;
+
   constructor(
     private route: ActivatedRoute,
     private fb: FormBuilder,
@@ -38,6 +43,20 @@ export class DetailComponent implements OnInit {
 
   public ngOnInit(): void {
     this.fetchSession();
+    this.changes = this.sessionApiService
+      .changes()
+      .pipe(filter((change: SessionChange) => change.sessionId === null || change.sessionId.toString() === this.sessionId))
+      .subscribe((change: SessionChange) => {
+        if (change.type === 'DELETED') {
+          this.router.navigate(['sessions']);
+        } else {
+          this.fetchSession();
+        }
+      });
+  }
+
+  public ngOnDestroy(): void {
+    this.changes?.unsubscribe();
   }
 
   public back() {
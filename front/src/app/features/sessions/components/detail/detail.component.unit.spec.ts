@@ -10,7 +10,7 @@ import { RouterTestingModule, } from '@angular/router/testing';
 import { Router, ActivatedRoute } from '@angular/router';
 
 import { expect } from '@jest/globals';
-import { of } from 'rxjs';
+import { NEVER, of } from 'rxjs';
 
 import { SessionService } from '../../../../services/session.service';
 import { SessionApiService } from 'src/app/features/sessions/services/session-api.service';
@@ -51,7 +51,8 @@ describe('DetailComponent Unit Tests', () => {
       detail: jest.fn().mockReturnValue(of(session)),
       delete: jest.fn().mockReturnValue(of(undefined)),
       participate: jest.fn().mockReturnValue(of(undefined)),
-      unParticipate: jest.fn().mockReturnValue(of(undefined))
+      unParticipate: jest.fn().mockReturnValue(of(undefined)),
+      changes: jest.fn().mockReturnValue(NEVER)
     } as Partial<SessionApiService> as jest.Mocked<SessionApiService>;
 
     mockTeacherService = {
@@ -1,5 +1,5 @@
-import { ComponentFixture, TestBed } from '@angular/core/testing';
-import { of } from 'rxjs';
+import { ComponentFixture, TestBed, fakeAsync, tick } from '@angular/core/testing';
+import { Subject, of } from 'rxjs';
 
 import { RouterTestingModule } from '@angular/router/testing';
 
@@ -10,11 +10,13 @@ import { ListComponent } from './list.component';
 import { SessionService } from 'src/app/services/session.service';
 import { SessionApiService } from '../../services/session-api.service';
 import { Session } from '../../interfaces/session.interface';
+import { SessionChange } from '../../interfaces/sessionChange.interface';
 import { SessionInformation } from 'src/app/interfaces/sessionInformation.interface';
 
 describe('ListComponent Integration Tests', () => {
   let component: ListComponent;
   let fixture: ComponentFixture<ListComponent>;
+  let changes: Subject<SessionChange>;
 
   const mockSessions: Session[] = [
     {
@@ -46,14 +48,26 @@ describe('ListComponent Integration Tests', () => {
   };
 
   const mockSessionApiService = {
-    all: jest.fn().mockReturnValue(of(mockSessions))
+    all: jest.fn().mockReturnValue(of(mockSessions)),
+    changes: jest.fn()
   };
 
   const mockSessionService = {
     sessionInformation: mockSessionInfo
   };
 
+  const change = (type: SessionChange['type'], sessionId: number | null = 1): SessionChange => ({
+    sessionId,
+    type,
+    participantCount: type === 'PARTICIPANTS' ? 7 : null,
+    capacity: type === 'PARTICIPANTS' ? 10 : null
+  });
+
   beforeEach(async () => {
+    changes = new Subject<SessionChange>();
+    mockSessionApiService.all.mockClear();
+    mockSessionApiService.changes.mockClear().mockReturnValue(changes);
+
     await TestBed.configureTestingModule({
       declarations: [ListComponent],
       imports: [MatCardModule, MatIconModule, RouterTestingModule],
@@ -83,4 +97,57 @@ describe('ListComponent Integration Tests', () => {
       done();
     });
   });
+
+  it('should patch the seat count of the matching row without reloading on a participants change', fakeAsync(() => {
+    let latest: Session[] = [];
+    component.sessions$.subscribe((sessions) => latest = sessions);
+    const loads = mockSessionApiService.all.mock.calls.length;
+
+    changes.next(change('PARTICIPANTS'));
+    tick(ListComponent.RELOAD_WINDOW_MS);
+
+    expect(mockSessionApiService.all).toHaveBeenCalledTimes(loads);
+    expect(latest[0]).toEqual({ ...mockSessions[0], participantCount: 7, capacity: 10 });
+    expect(latest[1]).toEqual(mockSessions[1]);
+  }));
+
+  it('should show the seat count of a session once it is known', () => {
+    changes.next(change('PARTICIPANTS'));
+    fixture.detectChanges();
+
+    expect(fixture.nativeElement.textContent).toContain('7 / 10 participants');
+  });
+
+  it.each(['UPDATED', 'DELETED', 'RESYNC'] as SessionChange['type'][])(
+    'should reload the list once after a %s change', (type) => fakeAsync(() => {
+      component.sessions$.subscribe();
+      const loads = mockSessionApiService.all.mock.calls.length;
+
+      changes.next(change(type));
+      tick(ListComponent.RELOAD_WINDOW_MS - 1);
+      expect(mockSessionApiService.all).toHaveBeenCalledTimes(loads);
+
+      tick(1);
+      // one reload for each subscriber: the template and this test
+      expect(mockSessionApiService.all).toHaveBeenCalledTimes(loads + 2);
+    })()
+  );
+
+  it('should coalesce a burst of changes into a single reload', fakeAsync(() => {
+    const loads = mockSessionApiService.all.mock.calls.length;
+
+    changes.next(change('UPDATED', 1));
+    changes.next(change('DELETED', 2));
+    changes.next(change('PARTICIPANTS', 1));
+    changes.next(change('UPDATED', 2));
+    tick(ListComponent.RELOAD_WINDOW_MS);
+
+    expect(mockSessionApiService.all).toHaveBeenCalledTimes(loads + 1);
+  }));
+
+  it('should open a single change stream for all its subscribers', () => {
+    component.sessions$.subscribe();
+
+    expect(mockSessionApiService.changes).toHaveBeenCalledTimes(1);
+  });
 });
@@ -1,8 +1,10 @@
 import { Component } from '@angular/core';
 import { Observable } from 'rxjs';
+import { auditTime, filter, scan, share, startWith, switchMap } from 'rxjs/operators';
 import { SessionInformation } from '../../../../interfaces/sessionInformation.interface';
 import { SessionService } from '../../../../services/session.service';
 import { Session } from '../../interfaces/session.interface';
+import { SessionChange } from '../../interfaces/sessionChange.interface';
 import { SessionApiService } from '../../services/session-api.service';
 
 @Component({
@@ -12,7 +14,27 @@ import { SessionApiService } from '../../services/session-api.service';
 })
 export class ListComponent {
 
-  public sessions$: Observable<Session[]> = this.sessionApiService.all();
+  // Changes arriving within this window are answered with a single reload
+  public static readonly RELOAD_WINDOW_MS = 1000;
+
+  // One connection to the change stream, whatever the number of subscribers
+  private changes$: Observable<SessionChange> = this.sessionApiService.changes().pipe(share());
+
+  // Reloaded when sessions are edited, created or deleted; joins and leaves only patch the
+  // seat count of their row, so they never cost a reload of the whole list
+  public sessions$: Observable<Session[]> = this.changes$.pipe(
+    filter((change: SessionChange) => change.type !== 'PARTICIPANTS'),
+    auditTime(ListComponent.RELOAD_WINDOW_MS),
+    startWith(null),
+    switchMap(() => this.sessionApiService.all()),
+    switchMap((sessions: Session[]) => this.changes$.pipe(
+      filter((change: SessionChange) => change.type === 'PARTICIPANTS'),
+      scan((current: Session[], change: SessionChange) => current.map(session => session.id === change.sessionId
+        ? { ...session, participantCount: change.participantCount ?? session.participantCount, capacity: change.capacity }
+        : session), sessions),
+      startWith(sessions)
+    ))
+  );
 
   constructor(
     private sessionService: SessionService,
@@ -3,7 +3,9 @@ import { ComponentFixture, TestBed } from '@angular/core/testing';
 import { MatCardModule } from '@angular/material/card';
 import { MatIconModule } from '@angular/material/icon';
 import { expect } from '@jest/globals';
+import { NEVER } from 'rxjs';
 import { SessionService } from 'src/app/services/session.service';
+import { SessionApiService } from '../../services/session-api.service';
 
 import { ListComponent } from './list.component';
 
@@ -18,6 +20,7 @@ describe('ListComponent Unit Tests', () => {
   }
 
   beforeEach(async () => {
+    jest.spyOn(SessionApiService.prototype, 'changes').mockReturnValue(NEVER);
     await TestBed.configureTestingModule({
       declarations: [ListComponent],
       imports: [HttpClientModule, MatCardModule, MatIconModule],
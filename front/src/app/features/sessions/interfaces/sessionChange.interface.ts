@@ -0,0 +1,6 @@
+export interface SessionChange {
+  sessionId: number | null;
+  type: 'UPDATED' | 'PARTICIPANTS' | 'DELETED' | 'RESYNC';
+  participantCount: number | null;
+  capacity: number | null;
+}
@@ -1,7 +1,10 @@
-import { HttpClient } from '@angular/common/http';
+import { HttpClient, HttpHeaders, HttpResponse } from '@angular/common/http';
 import { Injectable } from '@angular/core';
 import { Observable } from 'rxjs';
+import { map, repeat, retry } from 'rxjs/operators';
+import { SessionService } from '../../../services/session.service';
 import { Session } from '../interfaces/session.interface';
+import { SessionChange } from '../interfaces/sessionChange.interface';
 
 @Injectable({
   providedIn: 'root'
@@ -10,7 +13,14 @@ export class SessionApiService {
 
   private pathService = 'api/session';
 
-  constructor(private httpClient: HttpClient) {
+  // Last ETag seen for each session, sent back as If-Match so that an edit based on an
+  // outdated copy is refused by the server
+  private eTags = new Map<string, string>();
+
+  // Delay before reconnecting to the change stream once it closed or failed
+  private reconnectDelayMs = 5000;
+
+  constructor(private httpClient: HttpClient, private sessionService: SessionService) {
   }
 
   public all(): Observable<Session[]> {
@@ -18,7 +28,9 @@ export class SessionApiService {
   }
 
   public detail(id: string): Observable<Session> {
-    return this.httpClient.get<Session>(`${this.pathService}/${id}`);
+    return this.httpClient
+      .get<Session>(`${this.pathService}/${id}`, { observe: 'response' })
+      .pipe(map((response: HttpResponse<Session>) => this.keepETag(id, response)));
   }
 
   public delete(id: string): Observable<any> {
@@ -30,7 +42,11 @@ export class SessionApiService {
   }
 
   public update(id: string, session: Session): Observable<Session> {
-    return this.httpClient.put<Session>(`${this.pathService}/${id}`, session);
+    const eTag = this.eTags.get(id);
+    const headers = eTag ? new HttpHeaders({ 'If-Match': eTag }) : undefined;
+    return this.httpClient
+      .put<Session>(`${this.pathService}/${id}`, session, { headers, observe: 'response' })
+      .pipe(map((response: HttpResponse<Session>) => this.keepETag(id, response)));
   }
 
   public participate(id: string, userId: string): Observable<void> {
@@ -41,4 +57,72 @@ export class SessionApiService {
     return this.httpClient.delete<void>(`${this.pathService}/${id}/participate/${userId}`);
   }
 
+  /**
+   * Streams the session changes pushed by the server, reconnecting whenever the stream ends.
+   * EventSource cannot send the Authorization header, so the stream is read with fetch instead.
+   */
+  public changes(): Observable<SessionChange> {
+    return new Observable<SessionChange>(subscriber => {
+      const controller = new AbortController();
+      const token = this.sessionService.sessionInformation?.token;
+      const headers: Record<string, string> = { Accept: 'text/event-stream' };
+      if (token) {
+        headers['Authorization'] = `Bearer ${token}`;
+      }
+
+      fetch(`${this.pathService}/events`, { headers, signal: controller.signal })
+        .then(response => {
+          if (!response.ok || !response.body) {
+            throw new Error(`Session events unavailable (${response.status})`);
+          }
+          return this.readEvents(response.body.getReader(), change => subscriber.next(change));
+        })
+        .then(() => subscriber.complete(), error => {
+          if (!controller.signal.aborted) {
+            subscriber.error(error);
+          }
+        });
+
+      return () => controller.abort();
+    }).pipe(
+      retry({ delay: this.reconnectDelayMs }),
+      repeat({ delay: this.reconnectDelayMs })
+    );
+  }
+
+  // Parses the text/event-stream format: events are separated by a blank line, and comment
+  // lines such as the server's heartbeats carry no data
+  private async readEvents(reader: ReadableStreamDefaultReader<Uint8Array>, emit: (change: SessionChange) => void): Promise<void> {
+    const decoder = new TextDecoder();
+    let buffer = '';
+    for (;;) {
+      const { done, value } = await reader.read();
+      if (done) {
+        return;
+      }
+      buffer += decoder.decode(value, { stream: true });
+
+      let end: number;
+      while ((end = buffer.indexOf('\n\n')) >= 0) {
+        const data = buffer.slice(0, end)
+          .split('\n')
+          .filter(line => line.startsWith('data:'))
+          .map(line => line.slice('data:'.length))
+          .join('\n');
+        buffer = buffer.slice(end + 2);
+        if (data) {
+          emit(JSON.parse(data));
+        }
+      }
+    }
+  }
+
+  private keepETag(id: string, response: HttpResponse<Session>): Session {
+    const eTag = response.headers.get('ETag');
+    if (eTag) {
+      this.eTags.set(id, eTag);
+    }
+    return response.body!;
+  }
+
 }
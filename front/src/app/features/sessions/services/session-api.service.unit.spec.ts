@@ -3,8 +3,17 @@ import { HttpClientTestingModule, HttpTestingController } from '@angular/common/
 import { TestBed } from '@angular/core/testing';
 import { expect } from '@jest/globals';
 
+import { take, toArray } from 'rxjs/operators';
+import { TextDecoder, TextEncoder } from 'util';
+
 import { SessionApiService } from './session-api.service';
 import { Session } from '../interfaces/session.interface';  // Import Session interface
+import { SessionChange } from '../interfaces/sessionChange.interface';
+import { SessionInformation } from 'src/app/interfaces/sessionInformation.interface';
+import { SessionService } from 'src/app/services/session.service';
+
+// jsdom does not provide them
+Object.assign(globalThis, { TextDecoder, TextEncoder });
 
 describe('SessionsService', () => {
   let service: SessionApiService;
@@ -87,6 +96,48 @@ it('should fetch all sessions', () => {
     req.flush(updatedSession); // Mock the response
   });
 
+  it('should send the ETag of the loaded session as If-Match on update', () => {
+    const sessionId = '1';
+
+    service.detail(sessionId).subscribe();
+    httpMock.expectOne(`api/session/${sessionId}`).flush(mockSession, { headers: { ETag: '"session-3-0"' } });
+
+    service.update(sessionId, mockSession).subscribe();
+    const req = httpMock.expectOne(`api/session/${sessionId}`);
+    expect(req.request.method).toBe('PUT');
+    expect(req.request.headers.get('If-Match')).toBe('"session-3-0"');
+    req.flush(mockSession, { headers: { ETag: '"session-4-0"' } });
+
+    service.update(sessionId, mockSession).subscribe();
+    const next = httpMock.expectOne(`api/session/${sessionId}`);
+    expect(next.request.headers.get('If-Match')).toBe('"session-4-0"');
+    next.flush(mockSession);
+  });
+
+  it('should stream session changes with the JWT', (done) => {
+    TestBed.inject(SessionService).sessionInformation = { token: 'jwt' } as SessionInformation;
+    // Split mid-event, with a heartbeat comment in between, as a proxy may deliver it
+    const chunks = [
+      'event:session\ndata:{"sessionId":1,"type":"PARTICIP',
+      'ANTS","participantCount":3,"capacity":10}\n\n:heartbeat\n\n',
+      'event:session\ndata:{"sessionId":null,"type":"RESYNC","participantCount":null,"capacity":null}\n\n'
+    ].map(chunk => ({ done: false, value: new TextEncoder().encode(chunk) }));
+    const read = jest.fn().mockImplementation(() => Promise.resolve(chunks.shift() ?? { done: true }));
+    const fetchMock = jest.fn().mockResolvedValue({ ok: true, status: 200, body: { getReader: () => ({ read }) } });
+    Object.assign(globalThis, { fetch: fetchMock });
+
+    service.changes().pipe(take(2), toArray()).subscribe((changes: SessionChange[]) => {
+      expect(fetchMock).toHaveBeenCalledWith('api/session/events', expect.objectContaining({
+        headers: { Accept: 'text/event-stream', Authorization: 'Bearer jwt' }
+      }));
+      expect(changes).toEqual([
+        { sessionId: 1, type: 'PARTICIPANTS', participantCount: 3, capacity: 10 },
+        { sessionId: null, type: 'RESYNC', participantCount: null, capacity: null }
+      ]);
+      done();
+    });
+  });
+
   it('should delete a session', () => {
     const sessionId = '1';
 
@@ -1,3 +1,8 @@
+-- Full current schema, for reference. The application creates and upgrades its schema on
+-- startup from back/src/main/resources/db/migration. A database created by hand from the first
+-- version of this script is baselined at V1 and upgraded from there; one created from a later
+-- version must set spring.flyway.baseline-version to the last migration it already matches.
+
 CREATE TABLE `TEACHERS` (
   `id` INT PRIMARY KEY AUTO_INCREMENT,
   `last_name` VARCHAR(40),
@@ -12,10 +17,39 @@ CREATE TABLE `SESSIONS` (
   `description` VARCHAR(2000),
   `date` TIMESTAMP,
   `teacher_id` int,
+  `capacity` INT,
+  `participant_count` INT NOT NULL DEFAULT 0,
+  `version` BIGINT NOT NULL DEFAULT 0,
+  `participants_version` BIGINT NOT NULL DEFAULT 0,
+  `series_id` INT,
+  `created_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  `updated_at` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+  INDEX `idx_sessions_date_id` (`date`, `id`),
+  INDEX `idx_sessions_teacher_date_id` (`teacher_id`, `date`, `id`),
+  INDEX `idx_sessions_series_date` (`series_id`, `date`)
+);
+
+CREATE TABLE `SESSION_SERIES` (
+  `id` INT PRIMARY KEY AUTO_INCREMENT,
+  `name` VARCHAR(50),
+  `description` VARCHAR(2500),
+  `teacher_id` int,
+  `capacity` INT,
+  `frequency` VARCHAR(10) NOT NULL,
+  `repeat_interval` INT NOT NULL DEFAULT 1,
+  `start_date` TIMESTAMP NULL,
+  `end_date` TIMESTAMP NULL,
   `created_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
   `updated_at` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
 );
 
+-- Session ids are handed out by Hibernate in blocks of 50 from this table so that inserts can
+-- be batched. The seed must end a block above the highest existing id.
+CREATE TABLE `ID_GENERATORS` (
+  `name` VARCHAR(64) PRIMARY KEY,
+  `next_val` BIGINT NOT NULL
+);
+
 CREATE TABLE `USERS` (
   `id` INT PRIMARY KEY AUTO_INCREMENT,
   `last_name` VARCHAR(40),
@@ -28,13 +62,38 @@ CREATE TABLE `USERS` (
 );
 
 CREATE TABLE `PARTICIPATE` (
-  `user_id` INT, 
-  `session_id` INT
+  `session_id` INT NOT NULL,
+  `user_id` INT NOT NULL,
+  PRIMARY KEY (`session_id`, `user_id`),
+  INDEX `idx_participate_user_session` (`user_id`, `session_id`)
+);
+
+CREATE TABLE `WAITLIST` (
+  `id` INT PRIMARY KEY AUTO_INCREMENT,
+  `session_id` INT NOT NULL,
+  `user_id` INT NOT NULL,
+  `created_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  UNIQUE KEY `uk_waitlist_session_user` (`session_id`, `user_id`)
+);
+
+CREATE TABLE `REVOKED_TOKENS` (
+  `id` INT PRIMARY KEY AUTO_INCREMENT,
+  `token_id` VARCHAR(64) NOT NULL UNIQUE,
+  `expires_at` DATETIME NOT NULL,
+  `revoked_at` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  INDEX `idx_revoked_tokens_expires_at` (`expires_at`)
 );
 
 ALTER TABLE `SESSIONS` ADD FOREIGN KEY (`teacher_id`) REFERENCES `TEACHERS` (`id`);
+ALTER TABLE `SESSIONS` ADD FOREIGN KEY (`series_id`) REFERENCES `SESSION_SERIES` (`id`);
+ALTER TABLE `SESSION_SERIES` ADD FOREIGN KEY (`teacher_id`) REFERENCES `TEACHERS` (`id`);
 ALTER TABLE `PARTICIPATE` ADD FOREIGN KEY (`user_id`) REFERENCES `USERS` (`id`);
 ALTER TABLE `PARTICIPATE` ADD FOREIGN KEY (`session_id`) REFERENCES `SESSIONS` (`id`);
+ALTER TABLE `WAITLIST` ADD FOREIGN KEY (`session_id`) REFERENCES `SESSIONS` (`id`) ON DELETE CASCADE;
+ALTER TABLE `WAITLIST` ADD FOREIGN KEY (`user_id`) REFERENCES `USERS` (`id`) ON DELETE CASCADE;
+
+INSERT INTO ID_GENERATORS (name, next_val)
+SELECT 'SESSIONS', COALESCE(MAX(id), 0) + 50 FROM SESSIONS;
 
 INSERT INTO TEACHERS (first_name, last_name)
 VALUES ('Margot', 'DELAHAYE'),